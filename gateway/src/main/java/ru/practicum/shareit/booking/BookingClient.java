@@ -1,66 +1,126 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.HttpClientConfig;
+import ru.practicum.shareit.client.StreamRelay;
 import ru.practicum.shareit.handler.exception.StateValidationException;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    private final StreamRelay streamRelay;
+
+    @Value("${shareit-server.export.timeout}")
+    private long exportTimeout;
+
+    @Value("${shareit-server.stream.timeout}")
+    private long streamTimeout;
+
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         @Qualifier(HttpClientConfig.REQUEST_FACTORY) ClientHttpRequestFactory requestFactory,
+                         ObjectProvider<WebClient> webClient,
+                         StreamRelay streamRelay) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                reactiveClient(webClient, serverUrl + API_PREFIX)
         );
+        this.streamRelay = streamRelay;
     }
 
-    public ResponseEntity<Object> addBooking(Long bookerId, BookingDto bookingDto) {
+    public Mono<ResponseEntity<Object>> addBooking(Long bookerId, BookingDto bookingDto) {
         return post("", bookerId, bookingDto);
     }
 
-    public ResponseEntity<Object> confirmationBooking(Long ownerId, String approved, Long bookingId) {
+    public Mono<ResponseEntity<Object>> addBookings(Long bookerId, List<BookingDto> bookingDtos) {
+        return post("/batch", bookerId, bookingDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> confirmationBooking(Long ownerId, String approved, Long bookingId) {
         Map<String, Object> parameters = Map.of(
                 "approved", approved
         );
         return patch("/" + bookingId + "?approved={approved}", ownerId, parameters, null);
     }
 
-    public ResponseEntity<Object> getBookingById(Long bookingId, Long userId) {
-        return get("/" + bookingId, userId);
+    public Mono<ResponseEntity<Object>> countBookerBookings(Long userId) {
+        return get("/counts", userId);
+    }
+
+    public Mono<ResponseEntity<Object>> countOwnerBookings(Long userId) {
+        return get("/owner/counts", userId);
+    }
+
+    public Mono<ResponseEntity<ResponseBodyEmitter>> exportBookerBookings(Long userId) {
+        return streamRelay.get(API_PREFIX + "/export", userId, MediaType.APPLICATION_NDJSON, exportTimeout);
+    }
+
+    public Mono<ResponseEntity<ResponseBodyEmitter>> exportOwnerBookings(Long userId) {
+        return streamRelay.get(API_PREFIX + "/owner/export", userId, MediaType.APPLICATION_NDJSON, exportTimeout);
+    }
+
+    public Mono<ResponseEntity<ResponseBodyEmitter>> streamOwnerBookings(Long userId) {
+        return streamRelay.get(API_PREFIX + "/owner/stream", userId, MediaType.TEXT_EVENT_STREAM, streamTimeout);
+    }
+
+    public Mono<ResponseEntity<Object>> decideBookings(Long ownerId, List<BookingDecisionDto> decisions) {
+        return patch("/owner/decisions", ownerId, decisions);
     }
 
-    public ResponseEntity<Object> getAllBrookingByBookerId(Long userId, String state, Integer from,
-                                                              Integer size) {
+    public Mono<ResponseEntity<Object>> getBookingById(Long bookingId, Long userId, String ifNoneMatch) {
+        return conditionalGet("/" + bookingId, userId, ifNoneMatch);
+    }
+
+    public Mono<ResponseEntity<Object>> getAllBrookingByBookerId(Long userId, String state, Integer from,
+                                                              Integer size, String cursor) {
         validateState(state);
-        Map<String, Object> parameters = Map.of(
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state,
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&&from={from}&&size={size}", userId, parameters);
+        ));
+        return get("?state={state}&&from={from}&&size={size}" + cursorQuery(cursor, parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> getAllBookingsForAllItemsByOwnerId(Long userId, String state, Integer from,
-                                                                   Integer size) {
+    public Mono<ResponseEntity<Object>> getAllBookingsForAllItemsByOwnerId(Long userId, String state, Integer from,
+                                                                   Integer size, String cursor) {
         validateState(state);
-        Map<String, Object> parameters = Map.of(
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state,
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&&from={from}&&size={size}", userId, parameters);
+        ));
+        return get("/owner?state={state}&&from={from}&&size={size}" + cursorQuery(cursor, parameters), userId, parameters);
+    }
+
+    private String cursorQuery(String cursor, Map<String, Object> parameters) {
+        if (cursor == null) {
+            return "";
+        }
+        parameters.put("cursor", cursor);
+        return "&&cursor={cursor}";
     }
 
     private void validateState(String state) {
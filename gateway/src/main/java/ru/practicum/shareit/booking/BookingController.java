@@ -3,10 +3,14 @@ package ru.practicum.shareit.booking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.common.Header;
 
@@ -14,6 +18,9 @@ import javax.validation.Valid;
 import javax.validation.ValidationException;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -24,7 +31,7 @@ public class BookingController {
 	private final BookingClient bookingClient;
 
 	@PostMapping
-	public ResponseEntity<Object> addBooking(@RequestHeader(Header.userIdHeader) @Min(1) Long bookerId,
+	public Mono<ResponseEntity<Object>> addBooking(@RequestHeader(Header.userIdHeader) @Min(1) Long bookerId,
 												@Valid @RequestBody BookingDto bookingDto) {
 		if (!bookingDto.getStart().isBefore(bookingDto.getEnd())) {
 			throw new ValidationException("Booking: Problem in dates");
@@ -33,39 +40,91 @@ public class BookingController {
 		return bookingClient.addBooking(bookerId, bookingDto);
 	}
 
+	@PostMapping("batch")
+	public Mono<ResponseEntity<Object>> addBookings(@RequestHeader(Header.userIdHeader) @Min(1) Long bookerId,
+											  @RequestBody @NotEmpty @Size(max = 50) List<@Valid BookingDto> bookingDtos) {
+		for (BookingDto bookingDto : bookingDtos) {
+			if (!bookingDto.getStart().isBefore(bookingDto.getEnd())) {
+				throw new ValidationException("Booking: Problem in dates for item " + bookingDto.getItemId());
+			}
+		}
+		log.info("POST: request to the endpoint was received: '/bookings/batch' user {}, add {} bookings", bookerId, bookingDtos.size());
+		return bookingClient.addBookings(bookerId, bookingDtos);
+	}
+
 	@PatchMapping("{bookingId}")
-	public ResponseEntity<Object> confirmationBooking(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
+	public Mono<ResponseEntity<Object>> confirmationBooking(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
 													  @RequestParam String approved,
 													  @PathVariable @Min(1) Long bookingId) {
 		log.info("PATCH: request to the endpoint was received: '/bookings' user {}, changed the status booking {}", ownerId, bookingId);
 		return bookingClient.confirmationBooking(ownerId, approved, bookingId);
 	}
 
+	@PatchMapping("owner/decisions")
+	public Mono<ResponseEntity<Object>> decideBookings(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
+												 @RequestBody @NotEmpty @Size(max = 500) List<@Valid BookingDecisionDto> decisions) {
+		log.info("PATCH: request to the endpoint was received: '/bookings/owner/decisions' user {}, {} decisions", ownerId, decisions.size());
+		return bookingClient.decideBookings(ownerId, decisions);
+	}
+
+	@GetMapping("counts")
+	public Mono<ResponseEntity<Object>> countBookerBookings(@RequestHeader(Header.userIdHeader) @Min(1) Long userId) {
+		log.info("GET: request to the endpoint was received: '/bookings/counts' user {}", userId);
+		return bookingClient.countBookerBookings(userId);
+	}
+
+	@GetMapping("owner/counts")
+	public Mono<ResponseEntity<Object>> countOwnerBookings(@RequestHeader(Header.userIdHeader) @Min(1) Long userId) {
+		log.info("GET: request to the endpoint was received: '/bookings/owner/counts' user {}", userId);
+		return bookingClient.countOwnerBookings(userId);
+	}
+
+	@GetMapping("export")
+	public Mono<ResponseEntity<ResponseBodyEmitter>> exportBookerBookings(@RequestHeader(Header.userIdHeader) @Min(1) Long userId) {
+		log.info("GET: request to the endpoint was received: '/bookings/export' user {}", userId);
+		return bookingClient.exportBookerBookings(userId);
+	}
+
+	@GetMapping("owner/export")
+	public Mono<ResponseEntity<ResponseBodyEmitter>> exportOwnerBookings(@RequestHeader(Header.userIdHeader) @Min(1) Long userId) {
+		log.info("GET: request to the endpoint was received: '/bookings/owner/export' user {}", userId);
+		return bookingClient.exportOwnerBookings(userId);
+	}
+
+	@GetMapping("owner/stream")
+	public Mono<ResponseEntity<ResponseBodyEmitter>> streamOwnerBookings(@RequestHeader(Header.userIdHeader) @Min(1) Long userId) {
+		log.info("GET: request to the endpoint was received: '/bookings/owner/stream' user {}", userId);
+		return bookingClient.streamOwnerBookings(userId);
+	}
+
 	@GetMapping("{bookingId}")
-	public ResponseEntity<Object> getBookingById(
+	public Mono<ResponseEntity<Object>> getBookingById(
 			@PathVariable @Min(1) Long bookingId,
-			@RequestHeader(Header.userIdHeader) @Min(1) Long userId) {
+			@RequestHeader(Header.userIdHeader) @Min(1) Long userId,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 		log.info("GET: request to the endpoint was received: '/bookings' get booking {}", bookingId);
-		return bookingClient.getBookingById(bookingId, userId);
+		return bookingClient.getBookingById(bookingId, userId, ifNoneMatch);
 	}
 
 	@GetMapping
-	public ResponseEntity<Object> getAllBrookingByBookerId(
+	public Mono<ResponseEntity<Object>> getAllBrookingByBookerId(
 			@RequestHeader(Header.userIdHeader) @Min(1) Long userId,
 			@RequestParam(defaultValue = "ALL") String state,
 			@RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
-			@RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(20) Integer size) {
+			@RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(20) Integer size,
+			@RequestParam(value = "cursor", required = false) String cursor) {
 		log.info("GET: request to the endpoint was received: '/bookings?state={state}&&from={from}&&size={size}");
-		return bookingClient.getAllBrookingByBookerId(userId, state, from, size);
+		return bookingClient.getAllBrookingByBookerId(userId, state, from, size, cursor);
 	}
 
 	@GetMapping("owner")
-	public ResponseEntity<Object> getAllBookingsForAllItemsByOwnerId(
+	public Mono<ResponseEntity<Object>> getAllBookingsForAllItemsByOwnerId(
 			@RequestHeader(Header.userIdHeader) @Min(1) Long userId,
 			@RequestParam(defaultValue = "ALL") String state,
 			@RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
-			@RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(20) Integer size) {
+			@RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(20) Integer size,
+			@RequestParam(value = "cursor", required = false) String cursor) {
 		log.info("GET: request to the endpoint was received: '/bookings/owner?state={state}&&from={from}&&size={size}");
-		return bookingClient.getAllBookingsForAllItemsByOwnerId(userId, state, from, size);
+		return bookingClient.getAllBookingsForAllItemsByOwnerId(userId, state, from, size, cursor);
 	}
 }
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class BookingDecisionDto {
+    @NotNull(message = "Поле bookingId обязательно")
+    @Min(value = 1, message = "Некорректный bookingId")
+    private Long bookingId;
+    @NotNull(message = "Поле approved обязательно")
+    private Boolean approved;
+}
@@ -1,86 +1,186 @@
 package ru.practicum.shareit.client;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 
 public class BaseClient {
+    /**
+     * Заголовки соединения сервера и длина тела не переносятся в ответ шлюза:
+     * соединение и кодирование передачи ответа клиенту шлюз выбирает сам
+     */
+    private static final Set<String> NOT_FORWARDED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(), "keep-alive", HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(), HttpHeaders.UPGRADE.toLowerCase());
+
     protected final RestTemplate rest;
+    @Nullable
+    private final WebClient webClient;
+
+    /**
+     * Тело ответа сервера передаётся клиенту без разбора JSON с исходным Content-Type:
+     * в блокирующем режиме потоком из соединения с сервером, в реактивном - массивом байт
+     */
+    @Value("${shareit-server.passthrough}")
+    private boolean passthrough;
 
-    public BaseClient(RestTemplate rest) {
+    /**
+     * При переданном WebClient запросы к серверу выполняются без блокировки потока Tomcat,
+     * иначе через RestTemplate в потоке запроса
+     */
+    public BaseClient(RestTemplate rest, @Nullable WebClient webClient) {
         this.rest = rest;
+        this.webClient = webClient;
+    }
+
+    /**
+     * WebClient клиента с базовым адресом API или null, если выбран блокирующий транспорт
+     */
+    @Nullable
+    protected static WebClient reactiveClient(ObjectProvider<WebClient> webClient, String baseUrl) {
+        WebClient shared = webClient.getIfAvailable();
+        if (shared == null) {
+            return null;
+        }
+        return shared.mutate()
+                .uriBuilderFactory(new DefaultUriBuilderFactory(baseUrl))
+                .build();
     }
 
-    protected ResponseEntity<Object> get(String path) {
+    protected Mono<ResponseEntity<Object>> get(String path) {
         return get(path, null, null);
     }
 
-    protected ResponseEntity<Object> get(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> get(String path, long userId) {
         return get(path, userId, null);
     }
 
-    protected ResponseEntity<Object> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null);
+    protected Mono<ResponseEntity<Object>> get(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.GET, path, userId, parameters, null, null);
+    }
+
+    /**
+     * Условный GET: валидатор клиента передаётся серверу, и ответ 304 без тела возвращается клиенту
+     * вместе с ETag, так что шлюз не читает и не копирует неизменившееся представление
+     */
+    protected Mono<ResponseEntity<Object>> conditionalGet(String path, long userId, @Nullable String ifNoneMatch) {
+        return makeAndSendRequest(HttpMethod.GET, path, userId, null, null, ifNoneMatch);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, T body) {
         return post(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> post(String path, long userId, T body) {
         return post(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
+    protected <T> Mono<ResponseEntity<Object>> post(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body, null);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, T body) {
         return put(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body);
+    protected <T> Mono<ResponseEntity<Object>> put(String path, long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.PUT, path, userId, parameters, body, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, T body) {
         return patch(path, null, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId) {
         return patch(path, userId, null, null);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, long userId, T body) {
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, long userId, T body) {
         return patch(path, userId, null, body);
     }
 
-    protected <T> ResponseEntity<Object> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
-        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body);
+    protected <T> Mono<ResponseEntity<Object>> patch(String path, Long userId, @Nullable Map<String, Object> parameters, T body) {
+        return makeAndSendRequest(HttpMethod.PATCH, path, userId, parameters, body, null);
     }
 
-    protected ResponseEntity<Object> delete(String path) {
+    protected Mono<ResponseEntity<Object>> delete(String path) {
         return delete(path, null, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, long userId) {
+    protected Mono<ResponseEntity<Object>> delete(String path, long userId) {
         return delete(path, userId, null);
     }
 
-    protected ResponseEntity<Object> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
-        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
+    protected Mono<ResponseEntity<Object>> delete(String path, Long userId, @Nullable Map<String, Object> parameters) {
+        return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null, null);
+    }
+
+    private <T> Mono<ResponseEntity<Object>> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body,
+                                                                @Nullable String ifNoneMatch) {
+        HttpHeaders headers = defaultHeaders(userId, ifNoneMatch);
+        if (webClient != null) {
+            return exchange(method, path, headers, parameters, body);
+        }
+        if (passthrough) {
+            return Mono.fromCallable(() -> relay(method, path, headers, parameters, body));
+        }
+        return Mono.fromCallable(() -> send(method, path, headers, parameters, body));
     }
 
-    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+    /**
+     * Ошибки сервера передаются клиенту так же, как в блокирующем режиме: статус и исходное тело
+     */
+    private <T> Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, HttpHeaders headers, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = (parameters != null
+                ? webClient.method(method).uri(path, parameters)
+                : webClient.method(method).uri(path))
+                .headers(requestHeaders -> requestHeaders.addAll(headers));
+        WebClient.RequestHeadersSpec<?> requestWithBody = body != null ? request.bodyValue(body) : request;
+
+        return requestWithBody.exchangeToMono(response -> {
+            if (isForwarded(response.statusCode())) {
+                Class<?> bodyType = passthrough ? byte[].class : Object.class;
+                return response.toEntity(bodyType).map(BaseClient::prepareGatewayResponse);
+            }
+            return response.bodyToMono(byte[].class)
+                    .defaultIfEmpty(new byte[0])
+                    .map(errorBody -> ResponseEntity.status(response.statusCode()).body(errorBody));
+        });
+    }
+
+    private <T> ResponseEntity<Object> send(HttpMethod method, String path, HttpHeaders headers, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
 
         ResponseEntity<Object> shareitServerResponse;
         try {
@@ -95,27 +195,141 @@ public class BaseClient {
         return prepareGatewayResponse(shareitServerResponse);
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
+    /**
+     * Успешный ответ отдаётся как InputStreamResource: тело копируется клиенту по мере чтения,
+     * после записи поток закрывается и соединение возвращается в пул. Если тело так и не было записано
+     * (ошибка до записи), ответ сервера закрывается по завершении асинхронной обработки запроса шлюза:
+     * тело пишется при повторной диспетчеризации, поэтому закрывать его по концу первой нельзя
+     */
+    private <T> ResponseEntity<Object> relay(HttpMethod method, String path, HttpHeaders headers, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+        try {
+            return relay(method, uri, headers, body);
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on " + method + " request for \"" + uri + "\": " + e.getMessage(), e);
+        }
+    }
+
+    private <T> ResponseEntity<Object> relay(HttpMethod method, URI uri, HttpHeaders headers, @Nullable T body) throws IOException {
+        ClientHttpRequest request = rest.getRequestFactory().createRequest(uri, method);
+        rest.httpEntityCallback(new HttpEntity<>(body, headers)).doWithRequest(request);
+
+        ClientHttpResponse response = request.execute();
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            try (response) {
+                return prepareGatewayResponse(new ResponseEntity<>(response.getHeaders(), response.getStatusCode()));
+            }
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            try (response) {
+                return ResponseEntity.status(response.getStatusCode())
+                        .body(StreamUtils.copyToByteArray(response.getBody()));
+            }
+        }
+        RelayedBody relayedBody = new RelayedBody(response);
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes instanceof ServletRequestAttributes) {
+            WebAsyncUtils.getAsyncManager(((ServletRequestAttributes) requestAttributes).getRequest())
+                    .registerDeferredResultInterceptor(relayedBody, relayedBody);
+        }
+        return prepareGatewayResponse(new ResponseEntity<>(new InputStreamResource(relayedBody),
+                response.getHeaders(), response.getStatusCode()));
+    }
+
+    private HttpHeaders defaultHeaders(Long userId, @Nullable String ifNoneMatch) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         if (userId != null) {
             headers.set("X-Sharer-User-Id", String.valueOf(userId));
         }
+        if (ifNoneMatch != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    /**
+     * Заголовки сервера, в том числе ETag, передаются клиенту с успешными ответами и с 304
+     */
+    private static boolean isForwarded(HttpStatus status) {
+        return status.is2xxSuccessful() || status == HttpStatus.NOT_MODIFIED;
+    }
+
+    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<?> response) {
+        if (isForwarded(response.getStatusCode())) {
+            HttpHeaders headers = new HttpHeaders();
+            response.getHeaders().forEach((name, values) -> {
+                if (!NOT_FORWARDED_HEADERS.contains(name.toLowerCase())) {
+                    headers.addAll(name, values);
+                }
+            });
+            return ResponseEntity.status(response.getStatusCode()).headers(headers).<Object>body(response.getBody());
         }
 
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
 
         if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+            return responseBuilder.<Object>body(response.getBody());
         }
 
         return responseBuilder.build();
     }
+
+    /**
+     * Тело ответа сервера, которое при закрытии всегда освобождает соединение. Если тело прочитано не до конца
+     * (клиент шлюза отключился посреди загрузки), соединение разрывается, а не дочитывается до конца
+     */
+    private static class RelayedBody extends FilterInputStream implements DeferredResultProcessingInterceptor {
+        private final ClientHttpResponse response;
+        private boolean eof;
+        private boolean closed;
+
+        private RelayedBody(ClientHttpResponse response) throws IOException {
+            super(response.getBody());
+            this.response = response;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            if (result == -1) {
+                eof = true;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            if (result == -1) {
+                eof = true;
+            }
+            return result;
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, DeferredResult<T> deferredResult) {
+            close();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (!eof && in instanceof ConnectionReleaseTrigger) {
+                    ((ConnectionReleaseTrigger) in).abortConnection();
+                }
+            } catch (IOException ignored) {
+                // соединение всё равно закрывается ниже
+            } finally {
+                response.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,244 @@
+package ru.practicum.shareit.client;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проксирование потоковых ответов сервера без блокировки потоков: тело читается WebClient,
+ * пока клиент шлюза ждёт данных, ни один поток не занят. Каждый фрагмент записывается в ответ шлюза
+ * на ограниченном пуле писателей, и следующий фрагмент запрашивается у сервера только после записи
+ * предыдущего, поэтому медленный клиент притормаживает чтение из сервера, а не копит данные в памяти.
+ * Чтение тела начинается только после того, как MVC инициализировал эмиттер и запустил асинхронную
+ * обработку: до инициализации эмиттер копит отправленные фрагменты без ограничения
+ */
+@Slf4j
+@Component
+public class StreamRelay implements AsyncHandlerInterceptor {
+    private static final String POOL_NAME = "shareit-server-streams";
+    private static final String PENDING_RELAY = StreamRelay.class.getName() + ".PENDING_RELAY";
+
+    private final ConnectionProvider connectionProvider;
+    private final WebClient webClient;
+    private final ThreadPoolExecutor writers;
+
+    public StreamRelay(@Value("${shareit-server.url}") String serverUrl,
+                       @Value("${shareit-server.http.max-total}") int maxConnections,
+                       @Value("${shareit-server.http.connect-timeout}") int connectTimeout,
+                       @Value("${shareit-server.http.connection-request-timeout}") long connectionRequestTimeout,
+                       @Value("${shareit-server.stream.writers}") int writerCount,
+                       @Value("${shareit-server.stream.writer-queue}") int writerQueue,
+                       WebClient.Builder builder) {
+        this.connectionProvider = ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(connectionRequestTimeout))
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout);
+        this.webClient = builder
+                .baseUrl(serverUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+        this.writers = new ThreadPoolExecutor(writerCount, writerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(writerQueue), runnable -> {
+            Thread thread = new Thread(runnable, "shareit-stream-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * GET к серверу, статус и Content-Type ответа сервера переносятся в ответ шлюза, тело - байт в байт.
+     * timeout ограничивает время всего ответа шлюза, после него соединение с сервером закрывается
+     */
+    public Mono<ResponseEntity<ResponseBodyEmitter>> get(String path, long userId, MediaType mediaType, long timeout) {
+        return webClient.get()
+                .uri(path)
+                .accept(mediaType, MediaType.APPLICATION_JSON)
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .retrieve()
+                .onStatus(HttpStatus::isError, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class)
+                .map(entity -> {
+                    RelayEmitter emitter = new RelayEmitter(timeout, entity.getBody());
+                    ResponseEntity.BodyBuilder response = ResponseEntity.status(entity.getStatusCode());
+                    MediaType contentType = entity.getHeaders().getContentType();
+                    if (contentType != null) {
+                        response.contentType(contentType);
+                    }
+                    return response.body(emitter);
+                });
+    }
+
+    /**
+     * Вызывается после обработки эмиттера MVC, когда он уже инициализирован
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        Object emitter = request.getAttribute(PENDING_RELAY);
+        if (emitter != null) {
+            request.removeAttribute(PENDING_RELAY);
+            ((RelayEmitter) emitter).start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+        connectionProvider.dispose();
+    }
+
+    /**
+     * Эмиттер, который MVC передаёт в ответ шлюза: при обработке ответа он откладывает себя в атрибуты
+     * запроса, откуда его запускает afterConcurrentHandlingStarted
+     */
+    private class RelayEmitter extends ResponseBodyEmitter {
+        private final Flux<DataBuffer> body;
+        private final EmitterSubscriber subscriber;
+
+        private RelayEmitter(long timeout, Flux<DataBuffer> body) {
+            super(timeout);
+            this.body = body;
+            this.subscriber = new EmitterSubscriber(this);
+            onTimeout(subscriber::dispose);
+            onError(e -> subscriber.dispose());
+            onCompletion(subscriber::dispose);
+        }
+
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            RequestContextHolder.currentRequestAttributes()
+                    .setAttribute(PENDING_RELAY, this, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        private void start() {
+            body.subscribe(subscriber);
+        }
+    }
+
+    /**
+     * Запись фрагментов строго по одному; завершение ответа ждёт окончания записи последнего фрагмента
+     */
+    private class EmitterSubscriber extends BaseSubscriber<DataBuffer> {
+        private final ResponseBodyEmitter emitter;
+        private boolean writing;
+        private boolean finished;
+        private Throwable error;
+
+        private EmitterSubscriber(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(DataBuffer buffer) {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            DataBufferUtils.release(buffer);
+            synchronized (this) {
+                writing = true;
+            }
+            try {
+                writers.execute(() -> write(bytes));
+            } catch (RejectedExecutionException e) {
+                log.warn("Stream relay is aborted: all {} writers are busy", writers.getMaximumPoolSize());
+                cancel();
+                emitter.completeWithError(e);
+            }
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            finish(null);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            finish(throwable);
+        }
+
+        private void write(byte[] bytes) {
+            try {
+                emitter.send(bytes, MediaType.APPLICATION_OCTET_STREAM);
+            } catch (IOException | IllegalStateException e) {
+                // клиент шлюза отключился или ответ уже завершён по таймауту
+                cancel();
+                return;
+            }
+            boolean complete;
+            synchronized (this) {
+                writing = false;
+                complete = finished;
+            }
+            if (complete) {
+                complete();
+            } else {
+                request(1);
+            }
+        }
+
+        private void finish(Throwable throwable) {
+            boolean complete;
+            synchronized (this) {
+                finished = true;
+                error = throwable;
+                complete = !writing;
+            }
+            if (complete) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            Throwable failure;
+            synchronized (this) {
+                failure = error;
+            }
+            try {
+                if (failure == null) {
+                    emitter.complete();
+                } else {
+                    emitter.completeWithError(failure);
+                }
+            } catch (IllegalStateException ignored) {
+                // ответ уже завершён по таймауту
+            }
+        }
+    }
+}
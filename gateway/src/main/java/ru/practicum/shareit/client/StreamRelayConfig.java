@@ -0,0 +1,20 @@
+package ru.practicum.shareit.client;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Запуск проксирования потоковых ответов после инициализации их эмиттеров
+ */
+@Configuration
+@RequiredArgsConstructor
+public class StreamRelayConfig implements WebMvcConfigurer {
+    private final StreamRelay streamRelay;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(streamRelay);
+    }
+}
@@ -1,16 +1,22 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.HttpClientConfig;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
-
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,20 +24,23 @@ public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
 
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      @Qualifier(HttpClientConfig.REQUEST_FACTORY) ClientHttpRequestFactory requestFactory,
+                      ObjectProvider<WebClient> webClient) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                reactiveClient(webClient, serverUrl + API_PREFIX)
         );
     }
 
-    public ResponseEntity<Object> getItemById(Long ownerId, Long itemId) {
-        return get("/" + itemId, ownerId);
+    public Mono<ResponseEntity<Object>> getItemById(Long ownerId, Long itemId, String ifNoneMatch) {
+        return conditionalGet("/" + itemId, ownerId, ifNoneMatch);
     }
 
-    public ResponseEntity<Object> getItemsByOwner(Long ownerId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getItemsByOwner(Long ownerId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -39,7 +48,15 @@ public class ItemClient extends BaseClient {
         return get("?from={from}&size={size}", ownerId, parameters);
     }
 
-    public ResponseEntity<Object> searchItems(Long userId, String text, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
+    public Mono<ResponseEntity<Object>> searchItems(Long userId, String text, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "text", text,
                 "from", from,
@@ -48,19 +65,23 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
-    public ResponseEntity<Object> createItem(Long ownerId, ItemDto itemDto) {
+    public Mono<ResponseEntity<Object>> createItem(Long ownerId, ItemDto itemDto) {
         return post("", ownerId, itemDto);
     }
 
-    public ResponseEntity<Object> updateItem(Long ownerId, ItemDto itemDto, Long itemId) {
+    public Mono<ResponseEntity<Object>> createItems(Long ownerId, List<ItemDto> itemDtos) {
+        return post("/batch", ownerId, itemDtos);
+    }
+
+    public Mono<ResponseEntity<Object>> updateItem(Long ownerId, ItemDto itemDto, Long itemId) {
         return patch("/" + itemId, ownerId, itemDto);
     }
 
-    public ResponseEntity<Object> deleteItem(Long itemId) {
+    public Mono<ResponseEntity<Object>> deleteItem(Long itemId) {
         return delete("/" + itemId);
     }
 
-    public ResponseEntity<Object> addComment(Long itemId, Long ownerId, CommentDto commentDto) {
+    public Mono<ResponseEntity<Object>> addComment(Long itemId, Long ownerId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", ownerId, commentDto);
     }
 }
\ No newline at end of file
@@ -3,17 +3,25 @@ package ru.practicum.shareit.item;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import ru.practicum.shareit.common.Header;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
+import javax.validation.ValidationException;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/items")
@@ -24,14 +32,16 @@ public class ItemController {
     private final ItemClient itemClient;
 
     @GetMapping("{itemId}")
-    public ResponseEntity<Object> getItemById(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
-                                                        @PathVariable @Min(1) Long itemId) {
+    public Mono<ResponseEntity<Object>> getItemById(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
+                                                        @PathVariable @Min(1) Long itemId,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                        String ifNoneMatch) {
         log.info("GET: request was received to the endpoint: '/items' to receive an item with ID={}", itemId);
-        return itemClient.getItemById(ownerId, itemId);
+        return itemClient.getItemById(ownerId, itemId, ifNoneMatch);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByOwner(
+    public Mono<ResponseEntity<Object>> getItemsByOwner(
             @RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
             @RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
             @RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(20) Integer size) {
@@ -39,8 +49,21 @@ public class ItemController {
         return itemClient.getItemsByOwner(ownerId, from, size);
     }
 
+    @GetMapping("{itemId}/availability")
+    public Mono<ResponseEntity<Object>> getAvailability(
+            @RequestHeader(Header.userIdHeader) @Min(1) Long userId,
+            @PathVariable @Min(1) Long itemId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ValidationException("Availability: Problem in dates");
+        }
+        log.info("GET: request was received to the endpoint: '/items/{itemId}/availability' to receive free slots of the item with ID={}", itemId);
+        return itemClient.getAvailability(userId, itemId, from, to);
+    }
+
     @GetMapping("search")
-    public ResponseEntity<Object> searchItems(
+    public Mono<ResponseEntity<Object>> searchItems(
             @RequestHeader(Header.userIdHeader) @Min(1) Long userId,
             @RequestParam String text,
             @RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
@@ -50,14 +73,21 @@ public class ItemController {
     }
 
     @PostMapping
-    public ResponseEntity<Object> createItem(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
+    public Mono<ResponseEntity<Object>> createItem(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
                                              @Valid @RequestBody ItemDto itemDto) {
         log.info("POST: request was received to the endpoint: '/items' to add an item by the owner with ID={}", ownerId);
         return itemClient.createItem(ownerId, itemDto);
     }
 
+    @PostMapping("batch")
+    public Mono<ResponseEntity<Object>> createItems(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
+                                              @RequestBody @NotEmpty @Size(max = 100) List<@Valid ItemDto> itemDtos) {
+        log.info("POST: request was received to the endpoint: '/items/batch' to add {} items by the owner with ID={}", itemDtos.size(), ownerId);
+        return itemClient.createItems(ownerId, itemDtos);
+    }
+
     @PatchMapping("{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
+    public Mono<ResponseEntity<Object>> updateItem(@RequestHeader(Header.userIdHeader) @Min(1) Long ownerId,
                                              @RequestBody ItemDto itemDto,
                                              @PathVariable @Min(1) Long itemId) {
         log.info("PATCH: request was received to the endpoint: '/items' to update the item with ID={}", itemId);
@@ -65,14 +95,14 @@ public class ItemController {
     }
 
     @DeleteMapping("{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader(Header.userIdHeader)
+    public Mono<ResponseEntity<Object>> updateItem(@RequestHeader(Header.userIdHeader)
                                              @PathVariable @Min(1) Long itemId) {
         log.info("DELETE: request was received to the endpoint: '/items' to delete an item with ID={}", itemId);
         return itemClient.deleteItem(itemId);
     }
 
     @PostMapping("{itemId}/comment")
-    public ResponseEntity<Object> addComment(@PathVariable @Min(1) Long itemId,
+    public Mono<ResponseEntity<Object>> addComment(@PathVariable @Min(1) Long itemId,
                                              @RequestHeader(Header.userIdHeader) @Min(1) Long userId,
                                              @Valid @RequestBody CommentDto commentDto) {
         log.info("POST: request was received to the endpoint: '/{itemId}/comment' user {} add comment for Item {}", userId, itemId);
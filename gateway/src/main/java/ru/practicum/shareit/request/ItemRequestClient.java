@@ -1,15 +1,21 @@
 package ru.practicum.shareit.request;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.HttpClientConfig;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -17,20 +23,23 @@ public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
 
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             @Qualifier(HttpClientConfig.REQUEST_FACTORY) ClientHttpRequestFactory requestFactory,
+                             ObjectProvider<WebClient> webClient) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> requestFactory)
+                        .build(),
+                reactiveClient(webClient, serverUrl + API_PREFIX)
         );
     }
 
-    public ResponseEntity<Object> createRequest(Long requesterId, ItemRequestDto itemRequestDto) {
+    public Mono<ResponseEntity<Object>> createRequest(Long requesterId, ItemRequestDto itemRequestDto) {
         return post("", requesterId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> getPrivateRequests(Long requesterId, Integer from, Integer size) {
+    public Mono<ResponseEntity<Object>> getPrivateRequests(Long requesterId, Integer from, Integer size) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
@@ -38,15 +47,19 @@ public class ItemRequestClient extends BaseClient {
         return get("?from={from}&&size={size}", requesterId, parameters);
     }
 
-    public ResponseEntity<Object> getOtherRequests(Long requesterId, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public Mono<ResponseEntity<Object>> getOtherRequests(Long requesterId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("/all?from={from}&&size={size}", requesterId, parameters);
+        ));
+        if (cursor == null) {
+            return get("/all?from={from}&&size={size}", requesterId, parameters);
+        }
+        parameters.put("cursor", cursor);
+        return get("/all?from={from}&&size={size}&&cursor={cursor}", requesterId, parameters);
     }
 
-    public ResponseEntity<Object> getItemRequest(Long userId, Long requestId) {
-        return get("/" + userId, requestId);
+    public Mono<ResponseEntity<Object>> getItemRequest(Long userId, Long requestId, String ifNoneMatch) {
+        return conditionalGet("/" + requestId, userId, ifNoneMatch);
     }
 }
\ No newline at end of file
@@ -3,9 +3,11 @@ package ru.practicum.shareit.request;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 import ru.practicum.shareit.common.Header;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
@@ -22,14 +24,14 @@ public class ItemRequestController {
     private final ItemRequestClient itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> createRequest(@RequestHeader(Header.userIdHeader) @Min(1) Long requesterId,
+    public Mono<ResponseEntity<Object>> createRequest(@RequestHeader(Header.userIdHeader) @Min(1) Long requesterId,
                                                       @RequestBody @Valid ItemRequestDto itemRequestDto) {
         log.info("POST: request to the endpoint was received: '/requests' add new requests");
         return itemRequestClient.createRequest(requesterId, itemRequestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getPrivateRequests(
+    public Mono<ResponseEntity<Object>> getPrivateRequests(
             @RequestHeader(Header.userIdHeader) @Min(1) Long requesterId,
             @RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
             @RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(20) Integer size) {
@@ -38,19 +40,21 @@ public class ItemRequestController {
     }
 
     @GetMapping("all")
-    public ResponseEntity<Object> getOtherRequests(
+    public Mono<ResponseEntity<Object>> getOtherRequests(
             @RequestHeader(Header.userIdHeader) @Min(1) Long requesterId,
             @RequestParam(value = "from", defaultValue = "0") @Min(0) Integer from,
-            @RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(20) Integer size) {
+            @RequestParam(value = "size", defaultValue = "10") @Min(1) @Max(20) Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         log.info("GET: request to the endpoint was received: '/requests' get other requests");
-        return itemRequestClient.getOtherRequests(requesterId, from, size);
+        return itemRequestClient.getOtherRequests(requesterId, from, size, cursor);
     }
 
     @GetMapping("{requestId}")
-    public ResponseEntity<Object> getItemRequest(
+    public Mono<ResponseEntity<Object>> getItemRequest(
             @RequestHeader(Header.userIdHeader) @Min(1) Long userId,
-            @PathVariable @Min(1) Long requestId) {
+            @PathVariable @Min(1) Long requestId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET: request to the endpoint was received: '/requests' get item requests by id");
-        return itemRequestClient.getItemRequest(requestId, userId);
+        return itemRequestClient.getItemRequest(userId, requestId, ifNoneMatch);
     }
 }
\ No newline at end of file
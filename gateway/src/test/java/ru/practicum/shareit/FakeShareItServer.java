@@ -0,0 +1,66 @@
+package ru.practicum.shareit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Сервер ShareIt для тестов шлюза: тесты подставляют обработчики нужных путей
+ */
+public class FakeShareItServer {
+    private static final FakeShareItServer INSTANCE = new FakeShareItServer();
+
+    private final HttpServer server;
+    private final Map<String, HttpHandler> handlers = new ConcurrentHashMap<>();
+
+    private FakeShareItServer() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-shareit-server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/", exchange -> {
+            HttpHandler handler = handlers.get(exchange.getRequestURI().getPath());
+            if (handler == null) {
+                respond(exchange, 404, "application/json", "{\"error\":\"not found\"}");
+                return;
+            }
+            handler.handle(exchange);
+        });
+        server.start();
+    }
+
+    public static FakeShareItServer get() {
+        return INSTANCE;
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void handle(String path, HttpHandler handler) {
+        handlers.put(path, handler);
+    }
+
+    public static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (exchange) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.FakeShareItServer;
+import ru.practicum.shareit.GatewayTest;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Шлюз проверяет каждый элемент пакета и не передаёт серверу пакет с ошибкой
+ */
+class BookingBatchValidationTest extends GatewayTest {
+    private final AtomicInteger forwarded = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        forwarded.set(0);
+        UPSTREAM.handle("/bookings/batch", exchange -> {
+            forwarded.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            FakeShareItServer.respond(exchange, 200, "application/json", "[]");
+        });
+    }
+
+    @Test
+    void validBatchIsForwarded() throws Exception {
+        HttpResponse<String> response = post("[" + booking(1, 1, 2) + "," + booking(2, 1, 2) + "]");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(forwarded).hasValue(1);
+    }
+
+    @Test
+    void elementWithPastStartRejectsBatch() throws Exception {
+        HttpResponse<String> response = post("[" + booking(1, 1, 2) + "," + booking(2, -1, 2) + "]");
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(forwarded).hasValue(0);
+    }
+
+    @Test
+    void elementWithEndBeforeStartRejectsBatch() throws Exception {
+        HttpResponse<String> response = post("[" + booking(1, 2, 1) + "]");
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(forwarded).hasValue(0);
+    }
+
+    @Test
+    void elementWithoutItemRejectsBatch() throws Exception {
+        HttpResponse<String> response = post("[{\"start\":\"" + LocalDateTime.now().plusDays(1)
+                + "\",\"end\":\"" + LocalDateTime.now().plusDays(2) + "\"}]");
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(forwarded).hasValue(0);
+    }
+
+    @Test
+    void emptyAndOversizedBatchesAreRejected() throws Exception {
+        assertThat(post("[]").statusCode()).isEqualTo(400);
+        assertThat(post("[" + String.join(",", Collections.nCopies(51, booking(1, 1, 2))) + "]").statusCode())
+                .isEqualTo(400);
+        assertThat(forwarded).hasValue(0);
+    }
+
+    private HttpResponse<String> post(String body) throws Exception {
+        return httpClient.send(request("/bookings/batch", 1)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String booking(long itemId, int startInDays, int endInDays) {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        return "{\"itemId\":" + itemId + ",\"start\":\"" + now.plusDays(startInDays)
+                + "\",\"end\":\"" + now.plusDays(endInDays) + "\"}";
+    }
+}
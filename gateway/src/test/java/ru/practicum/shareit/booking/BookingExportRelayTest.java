@@ -0,0 +1,59 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.FakeShareItServer;
+import ru.practicum.shareit.GatewayTest;
+
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выгрузка проходит через шлюз без изменений, в том числе отказ сервера
+ */
+class BookingExportRelayTest extends GatewayTest {
+    private static final int LINES = 5_000;
+
+    @Test
+    void exportIsRelayedByteForByte() throws Exception {
+        String body = IntStream.range(0, LINES)
+                .mapToObj(i -> "{\"id\":" + i + ",\"status\":\"APPROVED\"}\n")
+                .collect(Collectors.joining());
+        UPSTREAM.handle("/bookings/export", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                // отдаём частями, как сервер при flush каждые несколько сотен строк
+                for (int offset = 0; offset < bytes.length; offset += 8192) {
+                    out.write(bytes, offset, Math.min(8192, bytes.length - offset));
+                    out.flush();
+                }
+            }
+        });
+
+        HttpResponse<String> response = httpClient.send(request("/bookings/export", 1).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                contentType -> assertThat(contentType).startsWith("application/x-ndjson"));
+        assertThat(response.body()).isEqualTo(body);
+    }
+
+    @Test
+    void rejectedExportKeepsServerStatus() throws Exception {
+        UPSTREAM.handle("/bookings/owner/export", exchange -> FakeShareItServer.respond(exchange, 503,
+                "application/json", "{\"error\":\"Too many exports in progress, retry later\"}"));
+
+        HttpResponse<String> response = httpClient.send(request("/bookings/owner/export", 1).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(503);
+        assertThat(response.body()).contains("Too many exports");
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.GatewayTest;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Открытые потоки событий не занимают потоки шлюза: подписчиков больше, чем потоков
+ * исполнителя асинхронных запросов MVC по умолчанию (8), и каждый получает событие, пока все соединения открыты
+ */
+class BookingStreamRelayTest extends GatewayTest {
+    private static final int SUBSCRIBERS = 12;
+
+    @Test
+    void moreSubscribersThanAsyncThreadsReceiveEvents() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        UPSTREAM.handle("/bookings/owner/stream", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(("id:1\nevent:CREATED\ndata:{\"bookingId\":" + exchange.getRequestHeaders()
+                        .getFirst("X-Sharer-User-Id") + "}\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        List<CompletableFuture<HttpResponse<InputStream>>> responses = new ArrayList<>();
+        for (int i = 1; i <= SUBSCRIBERS; i++) {
+            responses.add(httpClient.sendAsync(request("/bookings/owner/stream", i).build(),
+                    HttpResponse.BodyHandlers.ofInputStream()));
+        }
+
+        try {
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                HttpResponse<InputStream> response = responses.get(i).get(10, TimeUnit.SECONDS);
+                assertThat(response.statusCode()).isEqualTo(200);
+                assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                        contentType -> assertThat(contentType).startsWith("text/event-stream"));
+                assertThat(readData(response.body())).isEqualTo("{\"bookingId\":" + (i + 1) + "}");
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static String readData(InputStream body) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("data:")) {
+                        return line.substring("data:".length());
+                    }
+                }
+                return null;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+}
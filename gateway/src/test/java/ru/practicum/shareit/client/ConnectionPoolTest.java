@@ -0,0 +1,90 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.practicum.shareit.FakeShareItServer;
+import ru.practicum.shareit.GatewayTest;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Параллельные запросы к шлюзу при пуле меньше числа клиентов: к серверу открыто не больше соединений,
+ * чем разрешено пулом, соединения переиспользуются, а ожидание выдачи соединения попадает в метрику
+ */
+class ConnectionPoolTest extends GatewayTest {
+    private static final int MAX_TOTAL = 4;
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 5;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentRequestsReusePooledConnections() throws Exception {
+        Set<Integer> upstreamConnections = ConcurrentHashMap.newKeySet();
+        AtomicInteger maxLeased = new AtomicInteger();
+        UPSTREAM.handle("/users/77", exchange -> {
+            upstreamConnections.add(exchange.getRemoteAddress().getPort());
+            maxLeased.accumulateAndGet(connectionManager.getTotalStats().getLeased(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            FakeShareItServer.respond(exchange, 200, "application/json", "{\"id\":77}");
+        });
+        Timer leaseTimer = meterRegistry.get("httpcomponents.httpclient.pool.lease").timer();
+        long leasesBefore = leaseTimer.count();
+
+        int maxTotal = connectionManager.getMaxTotal();
+        connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(MAX_TOTAL);
+        try {
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch startSignal = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                        HttpResponse<String> response = httpClient.send(request("/users/77", 1).build(),
+                                HttpResponse.BodyHandlers.ofString());
+                        assertThat(response.statusCode()).isEqualTo(200);
+                        assertThat(response.body()).isEqualTo("{\"id\":77}");
+                    }
+                    return null;
+                }));
+            }
+            startSignal.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+        } finally {
+            connectionManager.setMaxTotal(maxTotal);
+        }
+
+        assertThat(maxLeased.get()).isBetween(1, MAX_TOTAL);
+        assertThat(upstreamConnections).hasSizeLessThanOrEqualTo(MAX_TOTAL);
+        assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+        assertThat(leaseTimer.count() - leasesBefore).isEqualTo(THREADS * REQUESTS_PER_THREAD);
+        assertThat(leaseTimer.max(TimeUnit.MILLISECONDS)).isPositive();
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.GatewayTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тело ответа сервера передаётся клиенту по мере чтения: первые байты доходят до клиента,
+ * пока сервер ещё не отдал остаток тела
+ */
+class PassthroughStreamingTest extends GatewayTest {
+    private static final int CHUNK = 64 * 1024;
+    private static final int CHUNKS = 32;
+
+    @Test
+    void firstBytesArriveBeforeServerSendsTheRest() throws Exception {
+        CountDownLatch firstBytesReceived = new CountDownLatch(1);
+        UPSTREAM.handle("/users/3", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+            byte[] chunk = new byte[CHUNK];
+            Arrays.fill(chunk, (byte) ' ');
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(chunk);
+                out.flush();
+                firstBytesReceived.await(10, TimeUnit.SECONDS);
+                for (int i = 1; i < CHUNKS; i++) {
+                    out.write(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = httpClient.send(request("/users/3", 1).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        try (InputStream body = response.body()) {
+            byte[] buffer = new byte[8192];
+            long received = 0;
+            while (received < CHUNK / 2) {
+                int read = body.read(buffer);
+                assertThat(read).isPositive();
+                received += read;
+            }
+            assertThat(firstBytesReceived.getCount()).isEqualTo(1);
+            assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(5);
+            firstBytesReceived.countDown();
+
+            received += readAll(body, buffer);
+            assertThat(received).isEqualTo((long) CHUNK * CHUNKS);
+        }
+    }
+
+    private static long readAll(InputStream body, byte[] buffer) throws IOException {
+        long received = 0;
+        for (int read = body.read(buffer); read != -1; read = body.read(buffer)) {
+            received += read;
+        }
+        return received;
+    }
+}
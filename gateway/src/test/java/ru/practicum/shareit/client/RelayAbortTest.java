@@ -0,0 +1,75 @@
+package ru.practicum.shareit.client;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import ru.practicum.shareit.GatewayTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Клиент шлюза отключается посреди загрузки: соединение с сервером разрывается и возвращается в пул,
+ * а не дочитывается до конца медленного тела
+ */
+class RelayAbortTest extends GatewayTest {
+    private static final int CHUNK = 64 * 1024;
+    private static final int CHUNKS = 2000;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void abortedDownloadReleasesUpstreamConnection() throws Exception {
+        UPSTREAM.handle("/users/2", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, (long) CHUNK * CHUNKS);
+            byte[] chunk = new byte[CHUNK];
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < CHUNKS; i++) {
+                    out.write(chunk);
+                    out.flush();
+                    TimeUnit.MILLISECONDS.sleep(50);
+                }
+            } catch (IOException e) {
+                // шлюз разорвал соединение
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoLinger(true, 0);
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /users/2 HTTP/1.1\r\nHost: localhost\r\nX-Sharer-User-Id: 1\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[8192];
+            long received = 0;
+            while (received < 2L * CHUNK) {
+                int read = in.read(buffer);
+                assertThat(read).isPositive();
+                received += read;
+            }
+            assertThat(connectionManager.getTotalStats().getLeased()).isEqualTo(1);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (connectionManager.getTotalStats().getLeased() > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+    }
+}
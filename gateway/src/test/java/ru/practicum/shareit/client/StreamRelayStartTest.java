@@ -0,0 +1,98 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitterReturnValueHandler;
+import ru.practicum.shareit.GatewayTest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Тело сервера читается только после того, как MVC инициализировал эмиттер: до этого сервер упирается
+ * в буферы сокета, а не выгружается в память шлюза
+ */
+class StreamRelayStartTest extends GatewayTest {
+    private static final int CHUNK = 64 * 1024;
+    private static final int CHUNKS = 256;
+
+    @Autowired
+    private StreamRelay streamRelay;
+
+    @Test
+    void bodyIsReadOnlyAfterEmitterIsInitialised() throws Exception {
+        AtomicLong written = new AtomicLong();
+        UPSTREAM.handle("/bookings/export", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            byte[] chunk = new byte[CHUNK];
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < CHUNKS; i++) {
+                    out.write(chunk);
+                    out.flush();
+                    written.addAndGet(CHUNK);
+                }
+            } catch (IOException e) {
+                // шлюз разорвал соединение
+            }
+        });
+
+        ResponseEntity<ResponseBodyEmitter> entity = streamRelay.get("/bookings/export", 1,
+                MediaType.APPLICATION_NDJSON, 30_000).block();
+        assertThat(entity).isNotNull();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/bookings/export");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        NativeWebRequest webRequest = new ServletWebRequest(request, response);
+        WebAsyncUtils.getAsyncManager(webRequest)
+                .setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        try {
+            new ResponseBodyEmitterReturnValueHandler(List.of(new ByteArrayHttpMessageConverter()))
+                    .handleReturnValue(entity.getBody(), emitterType(), new ModelAndViewContainer(), webRequest);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertThat(response.getContentAsByteArray().length).isZero();
+        assertThat(written.get()).isLessThan((long) CHUNK * CHUNKS);
+
+        streamRelay.afterConcurrentHandlingStarted(request, response, null);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (response.getContentAsByteArray().length < CHUNK * CHUNKS && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertThat(response.getContentAsByteArray().length).isEqualTo(CHUNK * CHUNKS);
+    }
+
+    private static MethodParameter emitterType() throws NoSuchMethodException {
+        return new MethodParameter(StreamRelayStartTest.class.getDeclaredMethod("emitter"), -1);
+    }
+
+    @SuppressWarnings("unused")
+    private static ResponseBodyEmitter emitter() {
+        return null;
+    }
+}
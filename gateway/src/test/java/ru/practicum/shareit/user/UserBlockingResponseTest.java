@@ -0,0 +1,144 @@
+package ru.practicum.shareit.user;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.reactive.function.client.WebClient;
+import ru.practicum.shareit.FakeShareItServer;
+import ru.practicum.shareit.client.HttpClientConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Блокирующий режим с передачей тела потоком: ответ сервера читается при подписке на Mono и пишется
+ * при повторной диспетчеризации, поэтому соединение с сервером освобождается только после записи ответа.
+ * Контроллер собирается без контекста Spring поверх того же пула соединений, что и в шлюзе
+ */
+class UserBlockingResponseTest {
+    private static final FakeShareItServer UPSTREAM = FakeShareItServer.get();
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 4;
+
+    private static PoolingHttpClientConnectionManager connectionManager;
+    private static CloseableHttpClient httpClient;
+    private static MockMvc mvc;
+
+    @BeforeAll
+    static void setUp() {
+        HttpClientConfig config = new HttpClientConfig();
+        connectionManager = config.shareitServerConnectionManager(THREADS, THREADS, 2000, new SimpleMeterRegistry());
+        httpClient = config.shareitServerHttpClient(connectionManager, 2000, 5000, 30000, 30000, 30000);
+        UserClient userClient = new UserClient(UPSTREAM.url(), new RestTemplateBuilder(),
+                config.shareitServerRequestFactory(httpClient),
+                new StaticListableBeanFactory().getBeanProvider(WebClient.class));
+        ReflectionTestUtils.setField(userClient, "passthrough", true);
+        mvc = MockMvcBuilders.standaloneSetup(new UserController(userClient)).build();
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        httpClient.close();
+        connectionManager.close();
+    }
+
+    @Test
+    void successfulResponseIsRelayed() throws Exception {
+        UPSTREAM.handle("/users/1", exchange -> FakeShareItServer.respond(exchange, 200, "application/json",
+                "{\"id\":1,\"name\":\"user\",\"email\":\"user@mail.ru\"}"));
+
+        MvcResult result = mvc.perform(get("/users/1").header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":1,\"name\":\"user\",\"email\":\"user@mail.ru\"}"));
+
+        assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+    }
+
+    @Test
+    void errorResponseIsRelayed() throws Exception {
+        MvcResult result = mvc.perform(get("/users/404").header("X-Sharer-User-Id", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(content().json("{\"error\":\"not found\"}"));
+
+        assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+    }
+
+    /**
+     * Сервер отвечает с задержкой, поэтому запросы потоков перекрываются: каждый получает свой ответ,
+     * а после всех запросов в пуле не остаётся выданных соединений
+     */
+    @Test
+    void concurrentRequestsGetTheirOwnResponses() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        for (int i = 1; i <= THREADS; i++) {
+            long userId = 1000 + i;
+            UPSTREAM.handle("/users/" + userId, exchange -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                FakeShareItServer.respond(exchange, 200, "application/json", "{\"id\":" + userId + "}");
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i <= THREADS; i++) {
+            long userId = 1000 + i;
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                for (int j = 0; j < REQUESTS_PER_THREAD; j++) {
+                    MvcResult result = mvc.perform(get("/users/" + userId).header("X-Sharer-User-Id", 1))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+                    mvc.perform(asyncDispatch(result))
+                            .andExpect(status().isOk())
+                            .andExpect(content().json("{\"id\":" + userId + "}", true));
+                }
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(maxInFlight.get()).isGreaterThan(1);
+        assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+        assertThat(connectionManager.getTotalStats().getAvailable()).isLessThanOrEqualTo(THREADS);
+    }
+}
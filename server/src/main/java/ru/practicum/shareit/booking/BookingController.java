@@ -3,13 +3,26 @@ package ru.practicum.shareit.booking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingCursorPage;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.export.BookingExportStreams;
+import ru.practicum.shareit.booking.export.BookingExporter;
 import ru.practicum.shareit.booking.service.BookingService;
 
 import java.util.List;
 
+import static ru.practicum.shareit.utilitary.Constants.HEADER_NEXT_CURSOR;
 import static ru.practicum.shareit.utilitary.Constants.HEADER_USER_ID;
 
 @Slf4j
@@ -19,6 +32,8 @@ import static ru.practicum.shareit.utilitary.Constants.HEADER_USER_ID;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final BookingExporter bookingExporter;
+    private final BookingExportStreams bookingExportStreams;
 
     @PostMapping()
     public BookingOutDto addBookings(@RequestHeader(HEADER_USER_ID) Long userId, @RequestBody BookingDto bookingDto) {
@@ -26,6 +41,13 @@ public class BookingController {
         return bookingService.addBooking(bookingDto, userId);
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResultDto> addBookings(@RequestHeader(HEADER_USER_ID) Long userId,
+                                                   @RequestBody List<BookingDto> bookingDtos) {
+        log.info("POST: request to the endpoint was received: '/bookings/batch' user {}, add {} bookings", userId, bookingDtos.size());
+        return bookingService.addBookings(bookingDtos, userId);
+    }
+
     @PatchMapping("/{bookingId}")
     public BookingOutDto confirmationBooking(@RequestHeader(HEADER_USER_ID) Long userId,
                                              @PathVariable Long bookingId,
@@ -34,27 +56,97 @@ public class BookingController {
         return bookingService.confirmationBooking(userId, bookingId, approved);
     }
 
+    @PatchMapping("/owner/decisions")
+    public List<BookingDecisionResultDto> decideBookings(@RequestHeader(HEADER_USER_ID) Long userId,
+                                                         @RequestBody List<BookingDecisionDto> decisions) {
+        log.info("PATCH: request to the endpoint was received: '/bookings/owner/decisions' user {}, {} decisions", userId, decisions.size());
+        return bookingService.decideBookings(userId, decisions);
+    }
+
+    @GetMapping("/counts")
+    public BookingCountsDto countBookerBookings(@RequestHeader(HEADER_USER_ID) Long userId) {
+        log.info("GET: request to the endpoint was received: '/bookings/counts' user {}", userId);
+        return bookingService.countBookingsByBookerId(userId);
+    }
+
+    @GetMapping("/owner/counts")
+    public BookingCountsDto countOwnerBookings(@RequestHeader(HEADER_USER_ID) Long userId) {
+        log.info("GET: request to the endpoint was received: '/bookings/owner/counts' user {}", userId);
+        return bookingService.countBookingsByOwnerId(userId);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> exportBookerBookings(@RequestHeader(HEADER_USER_ID) Long userId) {
+        log.info("GET: request to the endpoint was received: '/bookings/export' user {}", userId);
+        bookingExporter.checkUser(userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookingExportStreams.start(out -> bookingExporter.exportByBooker(userId, out)));
+    }
+
+    @GetMapping(value = "/owner/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> exportOwnerBookings(@RequestHeader(HEADER_USER_ID) Long userId) {
+        log.info("GET: request to the endpoint was received: '/bookings/owner/export' user {}", userId);
+        bookingExporter.checkUser(userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(bookingExportStreams.start(out -> bookingExporter.exportByOwner(userId, out)));
+    }
+
+    /**
+     * Поток событий о новых бронированиях вещей владельца и изменениях их статусов вместо опроса state=WAITING
+     */
+    @GetMapping(value = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOwnerBookings(@RequestHeader(HEADER_USER_ID) Long userId) {
+        log.info("GET: request to the endpoint was received: '/bookings/owner/stream' user {}", userId);
+        return bookingService.subscribeOwnerEvents(userId);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingOutDto getBookingById(@RequestHeader(HEADER_USER_ID) Long userId,
-                                        @PathVariable Long bookingId) {
+                                        @PathVariable Long bookingId,
+                                        WebRequest request) {
 
         log.info("GET: request to the endpoint was received: '/bookings' get booking {}", bookingId);
+        if (request.checkNotModified(bookingService.getBookingETag(userId, bookingId))) {
+            return null;
+        }
         return bookingService.getBookingByIdAndBookerId(userId, bookingId);
     }
 
+    /**
+     * При наличии параметра cursor (пустой - первая страница) используется keyset-пагинация,
+     * курсор следующей страницы возвращается в заголовке X-Next-Cursor
+     */
     @GetMapping
-    public List<BookingOutDto> getAllBrookingByBookerId(@RequestHeader(HEADER_USER_ID) Long userId,
+    public ResponseEntity<List<BookingOutDto>> getAllBrookingByBookerId(@RequestHeader(HEADER_USER_ID) Long userId,
             @RequestParam(defaultValue = "ALL") String state,
             @RequestParam(value = "from", defaultValue = "0") Integer from,
-            @RequestParam(value = "size", defaultValue = "10") Integer size) {
-        return bookingService.getAllBrookingByBookerId(PageRequest.of(from / size, size), userId, state);
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return toCursorResponse(bookingService.getBookingsPageByBookerId(cursor, size, userId, state));
+        }
+        return ResponseEntity.ok(bookingService.getAllBrookingByBookerId(PageRequest.of(from / size, size), userId, state));
     }
 
     @GetMapping("owner")
-    public List<BookingOutDto> getAllBookingsForAllItemsByOwnerId(@RequestHeader(HEADER_USER_ID) Long userId,
+    public ResponseEntity<List<BookingOutDto>> getAllBookingsForAllItemsByOwnerId(@RequestHeader(HEADER_USER_ID) Long userId,
             @RequestParam(defaultValue = "ALL") String state,
             @RequestParam(value = "from", defaultValue = "0") Integer from,
-            @RequestParam(value = "size", defaultValue = "10") Integer size) {
-        return bookingService.getAllBookingsForAllItemsByOwnerId(PageRequest.of(from / size, size), userId, state);
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return toCursorResponse(bookingService.getBookingsPageByOwnerId(cursor, size, userId, state));
+        }
+        return ResponseEntity.ok(bookingService.getAllBookingsForAllItemsByOwnerId(PageRequest.of(from / size, size), userId, state));
+    }
+
+    private ResponseEntity<List<BookingOutDto>> toCursorResponse(BookingCursorPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(HEADER_NEXT_CURSOR, page.getNextCursor());
+        }
+        return response.body(page.getBookings());
     }
 }
\ No newline at end of file
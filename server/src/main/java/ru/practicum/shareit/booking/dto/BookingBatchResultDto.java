@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Результат создания одного бронирования из пакета: созданное бронирование либо текст ошибки
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class BookingBatchResultDto {
+    private Integer index;
+    private Long itemId;
+    private BookingOutDto booking;
+    private String error;
+}
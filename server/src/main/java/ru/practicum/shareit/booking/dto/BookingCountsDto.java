@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+/**
+ * Число бронирований в каждом из состояний на один момент времени
+ */
+@Data
+public class BookingCountsDto {
+    private long all;
+    private long current;
+    private long past;
+    private long future;
+    private long waiting;
+    private long rejected;
+
+    /**
+     * Используется в конструкторном выражении JPQL; sum по пустой выборке возвращает null
+     */
+    public BookingCountsDto(Long all, Long current, Long past, Long future, Long waiting, Long rejected) {
+        this.all = valueOf(all);
+        this.current = valueOf(current);
+        this.past = valueOf(past);
+        this.future = valueOf(future);
+        this.waiting = valueOf(waiting);
+        this.rejected = valueOf(rejected);
+    }
+
+    private static long valueOf(Long count) {
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+/**
+ * Итог решения владельца по бронированию
+ */
+public enum BookingDecisionOutcome {
+    APPROVED,
+    REJECTED,
+    NOT_FOUND,
+    NOT_WAITING
+}
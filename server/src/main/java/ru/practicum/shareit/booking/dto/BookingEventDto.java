@@ -0,0 +1,39 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+import ru.practicum.shareit.booking.entity.Status;
+
+/**
+ * Событие потока бронирований владельца. Полное бронирование передаётся только при создании
+ */
+@Data
+@Builder
+public class BookingEventDto {
+    private BookingEventType type;
+    private Long bookingId;
+    private Long itemId;
+    private Status status;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BookingOutDto booking;
+
+    public static BookingEventDto created(BookingOutDto booking) {
+        return BookingEventDto.builder()
+                .type(BookingEventType.CREATED)
+                .bookingId(booking.getId())
+                .itemId(booking.getItem().getId())
+                .status(booking.getStatus())
+                .booking(booking)
+                .build();
+    }
+
+    public static BookingEventDto statusChanged(Long bookingId, Long itemId, Status status) {
+        return BookingEventDto.builder()
+                .type(BookingEventType.STATUS_CHANGED)
+                .bookingId(bookingId)
+                .itemId(itemId)
+                .status(status)
+                .build();
+    }
+}
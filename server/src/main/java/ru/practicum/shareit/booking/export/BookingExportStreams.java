@@ -0,0 +1,128 @@
+package ru.practicum.shareit.booking.export;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import ru.practicum.shareit.exception.ExportRejectedException;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Выполнение выгрузок на собственном ограниченном пуле, а не на общем исполнителе асинхронных запросов MVC.
+ * Данные уходят клиенту при каждом flush выгрузки, запись блокирует поток пула, пока клиент не примет данные,
+ * поэтому медленный клиент держит не больше одной порции в памяти. Когда пул и очередь заняты,
+ * выгрузка отклоняется сразу, а не ждёт неограниченно
+ */
+@Slf4j
+@Component
+public class BookingExportStreams {
+    private final ThreadPoolExecutor exporters;
+    private final long timeout;
+    private final Counter rejectedCounter;
+
+    public BookingExportStreams(@Value("${shareit.export.threads}") int threads,
+                                @Value("${shareit.export.queue-capacity}") int queueCapacity,
+                                @Value("${shareit.export.timeout}") long timeout,
+                                MeterRegistry meterRegistry) {
+        this.timeout = timeout;
+        this.exporters = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "booking-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rejectedCounter = Counter.builder("booking.export.rejected")
+                .description("Number of exports rejected because the export pool was full")
+                .register(meterRegistry);
+    }
+
+    public ResponseBodyEmitter start(Consumer<OutputStream> export) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout);
+        EmitterOutputStream out = new EmitterOutputStream(emitter);
+        emitter.onTimeout(out::cancel);
+        emitter.onError(e -> out.cancel());
+        try {
+            exporters.execute(() -> run(export, out, emitter));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ExportRejectedException();
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exporters.shutdownNow();
+    }
+
+    private void run(Consumer<OutputStream> export, EmitterOutputStream out, ResponseBodyEmitter emitter) {
+        try {
+            export.accept(out);
+            emitter.complete();
+        } catch (RuntimeException e) {
+            log.warn("Booking export is aborted: {}", e.getMessage());
+            try {
+                emitter.completeWithError(e);
+            } catch (IllegalStateException ignored) {
+                // запрос уже завершён по таймауту или обрыву соединения
+            }
+        }
+    }
+
+    /**
+     * Буфер между flush выгрузки; при отмене следующая запись падает, и выгрузка закрывает курсор
+     */
+    private static class EmitterOutputStream extends OutputStream {
+        private final ResponseBodyEmitter emitter;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private volatile boolean cancelled;
+
+        private EmitterOutputStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkCancelled();
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            checkCancelled();
+            buffer.write(bytes, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            checkCancelled();
+            if (buffer.size() == 0) {
+                return;
+            }
+            emitter.send(buffer.toByteArray(), MediaType.APPLICATION_NDJSON);
+            buffer.reset();
+        }
+
+        private void cancel() {
+            cancelled = true;
+        }
+
+        private void checkCancelled() throws IOException {
+            if (cancelled) {
+                throw new IOException("Export is cancelled");
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.booking.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.entity.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static ru.practicum.shareit.booking.dto.BookingMapper.toBookingDto;
+
+/**
+ * Выгрузка истории бронирований в NDJSON. Строки читаются курсором с ограниченным fetch size,
+ * контекст персистентности очищается каждые flush-every строк, поэтому память не зависит от объёма истории
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingExporter {
+    private static final int NEW_LINE = '\n';
+
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${shareit.export.flush-every}")
+    private int flushEvery;
+
+    public void checkUser(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+    }
+
+    @Transactional
+    public void exportByBooker(Long bookerId, OutputStream out) {
+        try (Stream<Booking> bookings = bookingRepository.streamAllByBookerId(bookerId)) {
+            write(bookings, out);
+        }
+    }
+
+    @Transactional
+    public void exportByOwner(Long ownerId, OutputStream out) {
+        try (Stream<Booking> bookings = bookingRepository.streamAllByOwnerId(ownerId)) {
+            write(bookings, out);
+        }
+    }
+
+    private void write(Stream<Booking> bookings, OutputStream out) {
+        ObjectWriter writer = objectMapper.writer();
+        int count = 0;
+        try {
+            for (Iterator<Booking> iterator = bookings.iterator(); iterator.hasNext(); ) {
+                out.write(writer.writeValueAsBytes(toBookingDto(iterator.next())));
+                out.write(NEW_LINE);
+                if (++count % flushEvery == 0) {
+                    entityManager.clear();
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.booking.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.entity.Booking;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.IncorrectBookingException;
+import ru.practicum.shareit.utilitary.TransactionHooks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс занятости вещей. Расписание вещи загружается из БД при первом обращении,
+ * дальше поддерживается в памяти при создании и подтверждении бронирований.
+ * Фоновая задача отбрасывает закончившиеся интервалы и выгружает расписания, к которым давно не обращались.
+ * Индекс видит только бронирования своего узла: при нескольких экземплярах сервера нужен режим блокировок
+ * advisory (shareit.booking.lock.mode), в котором пересечения дополнительно проверяются по БД
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+    private static final List<Status> OCCUPYING_STATUSES = List.of(Status.WAITING, Status.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, ItemSchedule> schedules = new ConcurrentHashMap<>();
+
+    @Value("${shareit.booking.index.idle-ttl}")
+    private Duration idleTtl;
+
+    public boolean isLoaded(Long itemId) {
+        return schedules.containsKey(itemId);
+    }
+
+    public void checkAvailability(Long itemId, LocalDateTime start, LocalDateTime end) {
+        if (!getSchedule(itemId).isFree(start, end)) {
+            throw new IncorrectBookingException("Item " + itemId + " is already booked for this time");
+        }
+    }
+
+    /**
+     * Занимает интервал бронирования. Если транзакция будет откачена, интервал освобождается
+     */
+    public void reserve(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        while (true) {
+            ItemSchedule schedule = getSchedule(itemId);
+            if (schedule.tryAdd(booking.getId(), booking.getStart(), booking.getEnd())) {
+                TransactionHooks.afterRollback(() -> schedule.remove(booking.getId()));
+                return;
+            }
+            if (!schedule.isRetired()) {
+                throw new IncorrectBookingException("Item " + itemId + " is already booked for this time");
+            }
+        }
+    }
+
+    /**
+     * Освобождает интервал сразу после успешной смены статуса, а не после фиксации: следующая смена статуса
+     * того же бронирования пройдёт только после фиксации этой транзакции, поэтому изменения индекса
+     * идут в том же порядке, что и смены статуса в БД. Если транзакция будет откачена, интервал возвращается
+     */
+    public void release(Long itemId, Long bookingId) {
+        ItemSchedule schedule = schedules.get(itemId);
+        if (schedule == null) {
+            return;
+        }
+        TimeSlotDto slot = schedule.remove(bookingId);
+        if (slot != null) {
+            TransactionHooks.afterRollback(() -> schedule.add(bookingId, slot.getStart(), slot.getEnd()));
+        }
+    }
+
+    public List<TimeSlotDto> getFreeSlots(Long itemId, LocalDateTime from, LocalDateTime to) {
+        return getSchedule(itemId).getFreeSlots(from, to);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.index.sweep-delay}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        long idleSince = System.currentTimeMillis() - idleTtl.toMillis();
+        int before = schedules.size();
+
+        schedules.keySet().forEach(itemId -> schedules.computeIfPresent(itemId,
+                (id, schedule) -> schedule.retireIfIdleSince(idleSince) ? null : schedule));
+        schedules.values().forEach(schedule -> schedule.prune(now));
+        if (schedules.size() < before) {
+            log.debug("Booking interval index: evicted {} idle item schedules", before - schedules.size());
+        }
+    }
+
+    public int size() {
+        return schedules.size();
+    }
+
+    public void evict(Long itemId) {
+        TransactionHooks.afterCommit(() -> schedules.computeIfPresent(itemId, (id, schedule) -> {
+            schedule.retire();
+            return null;
+        }));
+    }
+
+    private ItemSchedule getSchedule(Long itemId) {
+        ItemSchedule schedule = schedules.get(itemId);
+        if (schedule != null) {
+            schedule.touch();
+            return schedule;
+        }
+        ItemSchedule loaded = new ItemSchedule();
+        bookingRepository.findAllByItemIdAndStatusInAndEndAfter(itemId, OCCUPYING_STATUSES, LocalDateTime.now())
+                .forEach(booking -> loaded.add(booking.getId(), booking.getStart(), booking.getEnd()));
+
+        schedule = schedules.putIfAbsent(itemId, loaded);
+        return schedule == null ? loaded : schedule;
+    }
+}
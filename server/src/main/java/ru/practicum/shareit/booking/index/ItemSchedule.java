@@ -0,0 +1,156 @@
+package ru.practicum.shareit.booking.index;
+
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Расписание одной вещи: бронирования WAITING/APPROVED и объединённые из них непересекающиеся
+ * интервалы занятости, отсортированные по началу. Закончившиеся интервалы отбрасываются:
+ * новое бронирование не может начаться в прошлом, поэтому на проверки они не влияют
+ */
+class ItemSchedule {
+    private final Map<Long, TimeSlotDto> bookings = new HashMap<>();
+    private final TreeMap<LocalDateTime, LocalDateTime> busy = new TreeMap<>();
+    private volatile long lastAccess = System.currentTimeMillis();
+    private boolean retired;
+
+    synchronized boolean isFree(LocalDateTime start, LocalDateTime end) {
+        Map.Entry<LocalDateTime, LocalDateTime> before = busy.lowerEntry(end);
+        return before == null || !before.getValue().isAfter(start);
+    }
+
+    /**
+     * Выгруженное расписание не принимает бронирований: false, а isRetired подскажет загрузить новое
+     */
+    synchronized boolean tryAdd(Long bookingId, LocalDateTime start, LocalDateTime end) {
+        if (retired) {
+            return false;
+        }
+        touch();
+        prune(LocalDateTime.now());
+        if (bookings.containsKey(bookingId)) {
+            return true;
+        }
+        if (!isFree(start, end)) {
+            return false;
+        }
+        add(bookingId, start, end);
+        return true;
+    }
+
+    synchronized void add(Long bookingId, LocalDateTime start, LocalDateTime end) {
+        bookings.put(bookingId, new TimeSlotDto(start, end));
+        merge(start, end);
+    }
+
+    /**
+     * Удаление требует пересборки интервалов занятости, но происходит только при отклонении бронирования
+     */
+    synchronized TimeSlotDto remove(Long bookingId) {
+        TimeSlotDto removed = bookings.remove(bookingId);
+        if (removed == null) {
+            return null;
+        }
+        busy.clear();
+        bookings.values().forEach(slot -> merge(slot.getStart(), slot.getEnd()));
+        return removed;
+    }
+
+    /**
+     * Удаляет интервалы занятости, закончившиеся до now, и бронирования внутри них
+     */
+    synchronized void prune(LocalDateTime now) {
+        Map.Entry<LocalDateTime, LocalDateTime> first = busy.firstEntry();
+        if (first == null || !first.getValue().isBefore(now)) {
+            return;
+        }
+        while (first != null && first.getValue().isBefore(now)) {
+            busy.remove(first.getKey());
+            first = busy.firstEntry();
+        }
+        bookings.values().removeIf(slot -> slot.getEnd().isBefore(now));
+    }
+
+    synchronized int size() {
+        return bookings.size();
+    }
+
+    void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    boolean isIdleSince(long time) {
+        return lastAccess < time;
+    }
+
+    /**
+     * Помечает расписание выгруженным, если к нему не обращались с time. Проверка атомарна
+     * относительно tryAdd, поэтому бронирование не может попасть в уже выгруженное расписание
+     */
+    synchronized boolean retireIfIdleSince(long time) {
+        if (isIdleSince(time)) {
+            retired = true;
+        }
+        return retired;
+    }
+
+    synchronized void retire() {
+        retired = true;
+    }
+
+    synchronized boolean isRetired() {
+        return retired;
+    }
+
+    synchronized List<TimeSlotDto> getFreeSlots(LocalDateTime from, LocalDateTime to) {
+        List<TimeSlotDto> slots = new ArrayList<>();
+        LocalDateTime cursor = from;
+
+        Map.Entry<LocalDateTime, LocalDateTime> before = busy.lowerEntry(from);
+        if (before != null && before.getValue().isAfter(cursor)) {
+            cursor = before.getValue();
+        }
+        for (Map.Entry<LocalDateTime, LocalDateTime> range : busy.subMap(from, true, to, false).entrySet()) {
+            if (range.getKey().isAfter(cursor)) {
+                slots.add(new TimeSlotDto(cursor, range.getKey()));
+            }
+            if (range.getValue().isAfter(cursor)) {
+                cursor = range.getValue();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            slots.add(new TimeSlotDto(cursor, to));
+        }
+        return slots;
+    }
+
+    private void merge(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime mergedStart = start;
+        LocalDateTime mergedEnd = end;
+
+        Map.Entry<LocalDateTime, LocalDateTime> floor = busy.floorEntry(start);
+        if (floor != null && !floor.getValue().isBefore(start)) {
+            mergedStart = floor.getKey();
+            if (floor.getValue().isAfter(mergedEnd)) {
+                mergedEnd = floor.getValue();
+            }
+            busy.remove(floor.getKey());
+        }
+
+        Map.Entry<LocalDateTime, LocalDateTime> next = busy.ceilingEntry(mergedStart);
+        while (next != null && !next.getKey().isAfter(mergedEnd)) {
+            if (next.getValue().isAfter(mergedEnd)) {
+                mergedEnd = next.getValue();
+            }
+            busy.remove(next.getKey());
+            next = busy.ceilingEntry(mergedStart);
+        }
+        busy.put(mergedStart, mergedEnd);
+    }
+}
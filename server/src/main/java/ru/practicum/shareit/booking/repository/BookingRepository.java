@@ -1,48 +1,208 @@
 package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
 import ru.practicum.shareit.booking.entity.Booking;
 import ru.practicum.shareit.booking.entity.Status;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findAllByItem_UserId(long ownerId, Sort sort);
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
+public interface BookingRepository extends JpaRepository<Booking, Long> {
     Optional<Booking> findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(Long itemId, Status status, LocalDateTime dateTime);
 
     Optional<Booking> findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(Long itemId, Status status, LocalDateTime now);
 
     Boolean existsByBookerIdAndItemIdAndEndBefore(Long id, Long id1, LocalDateTime now);
 
-    List<Booking> findAllByItemIdInOrderByStartDesc(Pageable pageable, Collection<Long> itemId);
-
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    Optional<Booking> findDetailedById(Long id);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingCountsDto(count(b), " +
+            "sum(case when b.start < ?2 and b.end > ?2 then 1 else 0 end), " +
+            "sum(case when b.end < ?2 then 1 else 0 end), " +
+            "sum(case when b.start > ?2 then 1 else 0 end), " +
+            "sum(case when b.status = ?3 then 1 else 0 end), " +
+            "sum(case when b.status = ?4 then 1 else 0 end)) " +
+            "from Booking b where b.booker.id = ?1")
+    BookingCountsDto countByBookerId(Long bookerId, LocalDateTime now, Status waiting, Status rejected);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingCountsDto(count(b), " +
+            "sum(case when b.start < ?2 and b.end > ?2 then 1 else 0 end), " +
+            "sum(case when b.end < ?2 then 1 else 0 end), " +
+            "sum(case when b.start > ?2 then 1 else 0 end), " +
+            "sum(case when b.status = ?3 then 1 else 0 end), " +
+            "sum(case when b.status = ?4 then 1 else 0 end)) " +
+            "from Booking b where b.item.user.id = ?1")
+    BookingCountsDto countByOwnerId(Long ownerId, LocalDateTime now, Status waiting, Status rejected);
+
+    @Query("select case when count(b) > 0 then true else false end from Booking b " +
+            "where b.item.id = ?1 and b.status in ?4 and b.start < ?3 and b.end > ?2")
+    boolean existsOverlapping(Long itemId, LocalDateTime start, LocalDateTime end, Collection<Status> statuses);
+
+    /**
+     * Смена статуса по принципу compare-and-set: строка обновляется, только если статус не изменился с момента чтения
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = ?3, b.version = b.version + 1 where b.id = ?1 and b.status = ?2")
+    int compareAndSetStatus(Long id, Status expected, Status status);
+
+    @Query("select b.booker.id as bookerId, b.item.user.id as ownerId, b.version as version, " +
+            "b.item.version as itemVersion, b.booker.name as bookerName, b.booker.email as bookerEmail " +
+            "from Booking b where b.id = ?1")
+    Optional<BookingVersionView> findVersionViewById(Long id);
+
+    @Query("select b.id as id, b.item.id as itemId, b.status as status from Booking b " +
+            "where b.id in ?1 and b.item.user.id = ?2")
+    List<BookingStatusView> findStatusViewsByIdInAndOwnerId(Collection<Long> ids, Long ownerId);
+
+    /**
+     * Переводит из статуса from в статус to те из бронирований, что принадлежат вещам владельца
+     */
+    /**
+     * Блокирует до конца транзакции бронирования владельца в статусе status и возвращает их id:
+     * конкурирующая смена статуса этих бронирований дождётся фиксации и не пройдёт
+     */
+    @Query(value = "select b.id from bookings b where b.id in ?1 and b.status = ?3 " +
+            "and b.item_id in (select i.id from items i where i.user_id = ?2) for update", nativeQuery = true)
+    List<Long> lockIdsByIdInAndOwnerIdAndStatus(Collection<Long> ids, Long ownerId, String status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = ?4, b.version = b.version + 1 " +
+            "where b.id in ?1 and b.status = ?3 " +
+            "and b.item.id in (select i.id from Item i where i.user.id = ?2)")
+    int updateStatusByIdInAndOwnerId(Collection<Long> ids, Long ownerId, Status from, Status to);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    List<Booking> findAllByItem_UserIdOrderByStartDesc(Pageable pageable, Long ownerId);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
     List<Booking> findAllByBookerIdOrderByStartDesc(Pageable pageable, Long bookerId);
 
-    List<Booking> findAllByItemIdInAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-            Pageable pageable, Collection<Long> itemId, LocalDateTime start, LocalDateTime end);
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    List<Booking> findAllByItem_UserIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
+            Pageable pageable, Long ownerId, LocalDateTime start, LocalDateTime end);
 
+    @EntityGraph(Booking.DETAILS_GRAPH)
     List<Booking> findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
             Pageable pageable, Long bookerId, LocalDateTime start, LocalDateTime end);
 
-    List<Booking> findAllByItemIdInAndEndIsBeforeOrderByStartDesc(
-            Pageable pageable, Collection<Long> itemId, LocalDateTime end);
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    List<Booking> findAllByItem_UserIdAndEndIsBeforeOrderByStartDesc(
+            Pageable pageable, Long ownerId, LocalDateTime end);
 
+    @EntityGraph(Booking.DETAILS_GRAPH)
     List<Booking> findAllByBookerIdAndEndIsBeforeOrderByStartDesc(Pageable pageable, Long bookerId, LocalDateTime end);
 
-    List<Booking> findAllByItemIdInAndStartIsAfterOrderByStartDesc(
-            Pageable pageable, Collection<Long> itemId, LocalDateTime start);
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    List<Booking> findAllByItem_UserIdAndStartIsAfterOrderByStartDesc(
+            Pageable pageable, Long ownerId, LocalDateTime start);
 
+    @EntityGraph(Booking.DETAILS_GRAPH)
     List<Booking> findAllByBookerIdAndStartIsAfterOrderByStartDesc(
             Pageable pageable, Long bookerId, LocalDateTime start);
 
-    List<Booking> findAllByItemIdInAndStatusIsOrderByStartDesc(
-            Pageable pageable, Collection<Long> itemId, Status status);
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    List<Booking> findAllByItem_UserIdAndStatusIsOrderByStartDesc(
+            Pageable pageable, Long ownerId, Status status);
 
+    @EntityGraph(Booking.DETAILS_GRAPH)
     List<Booking> findAllByBookerIdAndStatusIsOrderByStartDesc(Pageable pageable, Long bookerId, Status status);
+
+    List<Booking> findAllByItemIdAndStatusInAndEndAfter(Long itemId, Collection<Status> statuses, LocalDateTime now);
+
+    /**
+     * Потоковое чтение всей истории; вызывать только внутри транзакции
+     */
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from Booking b where b.booker.id = ?1 order by b.start desc, b.id desc")
+    Stream<Booking> streamAllByBookerId(Long bookerId);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from Booking b where b.item.user.id = ?1 order by b.start desc, b.id desc")
+    Stream<Booking> streamAllByOwnerId(Long ownerId);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekAllByBookerId(Long bookerId, LocalDateTime start, Long id, Pageable pageable);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 and b.start < ?4 and b.end > ?4 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekCurrentByBookerId(Long bookerId, LocalDateTime start, Long id, LocalDateTime now, Pageable pageable);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 and b.end < ?4 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekPastByBookerId(Long bookerId, LocalDateTime start, Long id, LocalDateTime now, Pageable pageable);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 and b.start > ?4 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekFutureByBookerId(Long bookerId, LocalDateTime start, Long id, LocalDateTime now, Pageable pageable);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 and b.status = ?4 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekByBookerIdAndStatus(Long bookerId, LocalDateTime start, Long id, Status status, Pageable pageable);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.item.user.id = ?1 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekAllByOwnerId(Long ownerId, LocalDateTime start, Long id, Pageable pageable);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.item.user.id = ?1 and b.start < ?4 and b.end > ?4 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekCurrentByOwnerId(Long ownerId, LocalDateTime start, Long id, LocalDateTime now, Pageable pageable);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.item.user.id = ?1 and b.end < ?4 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekPastByOwnerId(Long ownerId, LocalDateTime start, Long id, LocalDateTime now, Pageable pageable);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.item.user.id = ?1 and b.start > ?4 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekFutureByOwnerId(Long ownerId, LocalDateTime start, Long id, LocalDateTime now, Pageable pageable);
+
+    @EntityGraph(Booking.DETAILS_GRAPH)
+    @Query("select b from Booking b " +
+            "where b.item.user.id = ?1 and b.status = ?4 " +
+            "and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> seekByOwnerIdAndStatus(Long ownerId, LocalDateTime start, Long id, Status status, Pageable pageable);
 }
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.entity.Status;
+
+/**
+ * Проекция бронирования для смены статуса без загрузки сущностей
+ */
+public interface BookingStatusView {
+    Long getId();
+
+    Long getItemId();
+
+    Status getStatus();
+}
@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.repository;
+
+/**
+ * Проекция бронирования для проверки доступа и вычисления ETag без загрузки сущностей
+ */
+public interface BookingVersionView {
+    Long getBookerId();
+
+    Long getOwnerId();
+
+    Long getVersion();
+
+    Long getItemVersion();
+
+    String getBookerName();
+
+    String getBookerEmail();
+}
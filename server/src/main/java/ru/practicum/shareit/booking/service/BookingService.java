@@ -1,6 +1,12 @@
 package ru.practicum.shareit.booking.service;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingCursorPage;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 
@@ -9,11 +15,27 @@ import java.util.List;
 public interface BookingService {
     BookingOutDto addBooking(BookingDto bookingDto, Long userId);
 
+    List<BookingBatchResultDto> addBookings(List<BookingDto> bookingDtos, Long userId);
+
     BookingOutDto confirmationBooking(Long userId, Long bookingId, Boolean approved);
 
+    List<BookingDecisionResultDto> decideBookings(Long userId, List<BookingDecisionDto> decisions);
+
+    SseEmitter subscribeOwnerEvents(Long userId);
+
     BookingOutDto getBookingByIdAndBookerId(Long userId, Long bookingId);
 
+    String getBookingETag(Long userId, Long bookingId);
+
     List<BookingOutDto> getAllBrookingByBookerId(Pageable pageable, Long userId, String state);
 
     List<BookingOutDto> getAllBookingsForAllItemsByOwnerId(Pageable pageable, Long userId, String state);
+
+    BookingCountsDto countBookingsByBookerId(Long userId);
+
+    BookingCountsDto countBookingsByOwnerId(Long userId);
+
+    BookingCursorPage getBookingsPageByBookerId(String cursor, Integer size, Long userId, String state);
+
+    BookingCursorPage getBookingsPageByOwnerId(String cursor, Integer size, Long userId, String state);
 }
@@ -1,25 +1,51 @@
 package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.dto.BookingCursorPage;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionOutcome;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingOutDto;
 import ru.practicum.shareit.booking.entity.Booking;
 import ru.practicum.shareit.booking.entity.State;
 import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.lock.ItemLocks;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingStatusView;
+import ru.practicum.shareit.booking.repository.BookingVersionView;
+import ru.practicum.shareit.booking.stream.BookingEventHub;
 import ru.practicum.shareit.exception.*;
+import ru.practicum.shareit.item.cache.ItemViewCache;
 import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.view.ItemViewService;
 import ru.practicum.shareit.user.entity.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utilitary.ETags;
+import ru.practicum.shareit.utilitary.SeekCursor;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static ru.practicum.shareit.booking.dto.BookingMapper.toBookingDto;
 import static ru.practicum.shareit.booking.dto.BookingMapper.toBookingDtoList;
@@ -32,54 +58,197 @@ public class BookingServiceImpl implements BookingService {
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemViewCache itemViewCache;
+    private final ItemLocks itemLocks;
+    private final ItemViewService itemViewService;
+    private final BookingEventHub bookingEventHub;
 
+    /**
+     * Транзакцию открывает ItemLocks уже под блокировкой вещи
+     */
     @Override
-    @Transactional
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public BookingOutDto addBooking(BookingDto bookingDto, Long userId) {
+        return itemLocks.executeLocked(Collections.singletonList(bookingDto.getItemId()),
+                () -> createBooking(bookingDto, userId));
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public List<BookingBatchResultDto> addBookings(List<BookingDto> bookingDtos, Long userId) {
+        Set<Long> itemIds = bookingDtos.stream()
+                .map(BookingDto::getItemId)
+                .collect(Collectors.toSet());
+        return itemLocks.executeLocked(itemIds, () -> createBookings(bookingDtos, itemIds, userId));
+    }
+
+    private BookingOutDto createBooking(BookingDto bookingDto, Long userId) {
         User user = getUserById(userId);
         Item item = getItemById(bookingDto.getItemId());
 
         Booking booking = BookingMapper.fromBookingDto(bookingDto);
         booking.setItem(item);
         booking.setBooker(user);
+        validateBooking(booking);
 
-        if (item.getUser().equals(user)) {
-            throw new NotFoundException("Owner " + userId + " can't book his item");
-        }
-        if (!item.getAvailable()) {
-            throw new IncorrectBookingException("Item " + item.getId() + " is booked");
-        }
-        if (booking.getStart().isAfter(booking.getEnd())) {
-            throw new IncorrectBookingException("Start cannot be later than end");
-        }
         booking.setStatus(Status.WAITING);
         bookingRepository.save(booking);
-        return toBookingDto(booking);
+        bookingIntervalIndex.reserve(booking);
+        BookingOutDto bookingOutDto = toBookingDto(booking);
+        bookingEventHub.publish(item.getUser().getId(), BookingEventDto.created(bookingOutDto));
+        return bookingOutDto;
+    }
+
+    /**
+     * Бронирования, не прошедшие проверку, возвращаются с текстом ошибки и не мешают сохранению остальных.
+     * Пересечения проверяются и с уже существующими бронированиями, и внутри пакета
+     */
+    private List<BookingBatchResultDto> createBookings(List<BookingDto> bookingDtos, Set<Long> itemIds, Long userId) {
+        User user = getUserById(userId);
+
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<BookingBatchResultDto> results = new ArrayList<>(bookingDtos.size());
+        List<Booking> acceptedBookings = new ArrayList<>();
+        List<BookingBatchResultDto> acceptedResults = new ArrayList<>();
+
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDto bookingDto = bookingDtos.get(i);
+            BookingBatchResultDto result = BookingBatchResultDto.builder()
+                    .index(i)
+                    .itemId(bookingDto.getItemId())
+                    .build();
+            results.add(result);
+            try {
+                Item item = items.get(bookingDto.getItemId());
+                if (item == null) {
+                    throw new ItemNotFoundException(bookingDto.getItemId());
+                }
+                Booking booking = BookingMapper.fromBookingDto(bookingDto);
+                booking.setItem(item);
+                booking.setBooker(user);
+                validateBooking(booking);
+                if (overlapsAny(booking, acceptedBookings)) {
+                    throw new IncorrectBookingException("Item " + item.getId() + " is booked twice in the batch for this time");
+                }
+
+                booking.setStatus(Status.WAITING);
+                acceptedBookings.add(booking);
+                acceptedResults.add(result);
+            } catch (NotFoundException | ItemNotFoundException | IncorrectBookingException e) {
+                result.setError(e.getMessage());
+            }
+        }
+
+        bookingRepository.saveAll(acceptedBookings);
+        for (int i = 0; i < acceptedBookings.size(); i++) {
+            Booking booking = acceptedBookings.get(i);
+            BookingOutDto bookingOutDto = toBookingDto(booking);
+            bookingIntervalIndex.reserve(booking);
+            acceptedResults.get(i).setBooking(bookingOutDto);
+            bookingEventHub.publish(booking.getItem().getUser().getId(), BookingEventDto.created(bookingOutDto));
+        }
+        return results;
     }
 
     @Override
     @Transactional
     public BookingOutDto confirmationBooking(Long userId, Long bookingId, Boolean approved) {
 
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findDetailedById(bookingId)
                 .orElseThrow(() -> new BookingNotFoundException(bookingId));
 
         if (!Objects.equals(booking.getItem().getUser().getId(), userId)) {
             throw new NotFoundException("User with id = " + userId + " is not an owner!");
         }
 
+        Status previous = booking.getStatus();
+        Status next = approved ? Status.APPROVED : Status.REJECTED;
+        if (approved && previous.equals(Status.APPROVED)) {
+            throw new IncorrectBookingException("Status is Approved");
+        }
+        if (bookingRepository.compareAndSetStatus(bookingId, previous, next) == 0) {
+            throw new IncorrectBookingException("Status of booking " + bookingId + " has already been changed");
+        }
+        booking.setStatus(next);
+
         if (approved) {
-            if (booking.getStatus().equals(Status.APPROVED)) {
-                throw new IncorrectBookingException("Status is Approved");
+            if (!previous.equals(Status.WAITING)) {
+                bookingIntervalIndex.reserve(booking);
             }
-            booking.setStatus(Status.APPROVED);
         } else {
-            booking.setStatus(Status.REJECTED);
+            bookingIntervalIndex.release(booking.getItem().getId(), bookingId);
         }
-        bookingRepository.save(booking);
+        itemViewService.refresh(booking.getItem().getId());
+        itemViewCache.evictOwnerBookings(booking.getItem().getId());
+        bookingEventHub.publish(userId, BookingEventDto.statusChanged(bookingId, booking.getItem().getId(), next));
         return toBookingDto(booking);
     }
 
+    /**
+     * Решения применяются двумя множественными update по заблокированным строкам в статусе WAITING.
+     * Для повторяющихся id учитывается первое решение
+     */
+    @Override
+    @Transactional
+    public List<BookingDecisionResultDto> decideBookings(Long userId, List<BookingDecisionDto> decisions) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        Map<Long, Boolean> approvedById = new LinkedHashMap<>();
+        decisions.forEach(decision -> approvedById.putIfAbsent(decision.getBookingId(), decision.getApproved()));
+
+        Map<Long, BookingStatusView> views = bookingRepository
+                .findStatusViewsByIdInAndOwnerId(approvedById.keySet(), userId).stream()
+                .collect(Collectors.toMap(BookingStatusView::getId, Function.identity()));
+
+        List<Long> toApprove = new ArrayList<>();
+        List<Long> toReject = new ArrayList<>();
+        views.values().stream()
+                .filter(view -> view.getStatus() == Status.WAITING)
+                .forEach(view -> (Boolean.TRUE.equals(approvedById.get(view.getId())) ? toApprove : toReject).add(view.getId()));
+
+        Set<Long> approved = applyDecision(toApprove, userId, Status.APPROVED);
+        Set<Long> rejected = applyDecision(toReject, userId, Status.REJECTED);
+
+        List<BookingDecisionResultDto> results = new ArrayList<>(approvedById.size());
+        for (Long bookingId : approvedById.keySet()) {
+            BookingStatusView view = views.get(bookingId);
+            BookingDecisionOutcome outcome;
+            if (view == null) {
+                outcome = BookingDecisionOutcome.NOT_FOUND;
+            } else if (approved.contains(bookingId)) {
+                outcome = BookingDecisionOutcome.APPROVED;
+                itemViewCache.evictOwnerBookings(view.getItemId());
+                bookingEventHub.publish(userId, BookingEventDto.statusChanged(bookingId, view.getItemId(), Status.APPROVED));
+            } else if (rejected.contains(bookingId)) {
+                outcome = BookingDecisionOutcome.REJECTED;
+                bookingIntervalIndex.release(view.getItemId(), bookingId);
+                itemViewCache.evictOwnerBookings(view.getItemId());
+                bookingEventHub.publish(userId, BookingEventDto.statusChanged(bookingId, view.getItemId(), Status.REJECTED));
+            } else {
+                outcome = BookingDecisionOutcome.NOT_WAITING;
+            }
+            results.add(new BookingDecisionResultDto(bookingId, outcome));
+        }
+        views.values().stream()
+                .filter(view -> approved.contains(view.getId()) || rejected.contains(view.getId()))
+                .map(BookingStatusView::getItemId)
+                .distinct()
+                .forEach(itemViewService::refresh);
+        return results;
+    }
+
+    @Override
+    public SseEmitter subscribeOwnerEvents(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        return bookingEventHub.subscribe(userId);
+    }
+
     @Override
     @Transactional
     public List<BookingOutDto> getAllBrookingByBookerId(Pageable pageable, Long userId, String state) {
@@ -103,6 +272,25 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    @Override
+    @Transactional
+    public BookingCursorPage getBookingsPageByBookerId(String cursor, Integer size, Long userId, String state) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        return getBookingsPage(SeekCursor.decode(cursor), size, state, userId, false);
+    }
+
+    @Override
+    @Transactional
+    public BookingCursorPage getBookingsPageByOwnerId(String cursor, Integer size, Long userId, String state) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        // владелец без вещей получает пустую страницу: выборка идёт через вещи владельца
+        return getBookingsPage(SeekCursor.decode(cursor), size, state, userId, true);
+    }
+
     @Override
     @Transactional
     public BookingOutDto getBookingByIdAndBookerId(Long userId, Long bookingId) {
@@ -116,19 +304,53 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    /**
+     * Права доступа те же, что у getBookingByIdAndBookerId, но без загрузки сущностей
+     */
+    @Override
+    @Transactional
+    public String getBookingETag(Long userId, Long bookingId) {
+        getUserById(userId);
+        BookingVersionView view = bookingRepository.findVersionViewById(bookingId)
+                .orElseThrow(() -> new BookingNotFoundException(bookingId));
+
+        if (!view.getBookerId().equals(userId) && !view.getOwnerId().equals(userId)) {
+            throw new BookingNotFoundException(bookingId);
+        }
+        return ETags.of("booking", bookingId, view.getVersion(), view.getItemVersion(),
+                ETags.checksum(view.getBookerName(), view.getBookerEmail()));
+    }
+
+    @Override
+    @Transactional
+    public BookingCountsDto countBookingsByBookerId(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        return bookingRepository.countByBookerId(userId, LocalDateTime.now(), Status.WAITING, Status.REJECTED);
+    }
+
+    @Override
+    @Transactional
+    public BookingCountsDto countBookingsByOwnerId(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+        return bookingRepository.countByOwnerId(userId, LocalDateTime.now(), Status.WAITING, Status.REJECTED);
+    }
+
     private List<BookingOutDto> getListBookings(Pageable pageable, String state, Long userId, Boolean isOwner) {
-        List<Long> itemsId = itemRepository.findAllItemIdByOwnerId(userId);
         switch (State.getEnumValue(state.toUpperCase())) {
             case ALL:
                 if (isOwner) {
-                    return toBookingDtoList(bookingRepository.findAllByItemIdInOrderByStartDesc(pageable, itemsId));
+                    return toBookingDtoList(bookingRepository.findAllByItem_UserIdOrderByStartDesc(pageable, userId));
                 } else {
                     return toBookingDtoList(bookingRepository.findAllByBookerIdOrderByStartDesc(pageable, userId));
                 }
             case CURRENT:
                 if (isOwner) {
-                    return toBookingDtoList(bookingRepository.findAllByItemIdInAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
-                                            pageable, itemsId, LocalDateTime.now(), LocalDateTime.now()));
+                    return toBookingDtoList(bookingRepository.findAllByItem_UserIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
+                                            pageable, userId, LocalDateTime.now(), LocalDateTime.now()));
                 } else {
                     return toBookingDtoList(bookingRepository.findAllByBookerIdAndStartIsBeforeAndEndIsAfterOrderByStartDesc(
                                             pageable, userId, LocalDateTime.now(), LocalDateTime.now()));
@@ -136,8 +358,8 @@ public class BookingServiceImpl implements BookingService {
             case PAST:
                 if (isOwner) {
                     return toBookingDtoList(bookingRepository
-                                    .findAllByItemIdInAndEndIsBeforeOrderByStartDesc(
-                                            pageable, itemsId, LocalDateTime.now()));
+                                    .findAllByItem_UserIdAndEndIsBeforeOrderByStartDesc(
+                                            pageable, userId, LocalDateTime.now()));
                 } else {
                     return toBookingDtoList(bookingRepository.findAllByBookerIdAndEndIsBeforeOrderByStartDesc(
                                             pageable, userId, LocalDateTime.now()));
@@ -145,7 +367,7 @@ public class BookingServiceImpl implements BookingService {
             case FUTURE:
                 if (isOwner) {
                     return toBookingDtoList(bookingRepository
-                                    .findAllByItemIdInAndStartIsAfterOrderByStartDesc(pageable, itemsId, LocalDateTime.now()));
+                                    .findAllByItem_UserIdAndStartIsAfterOrderByStartDesc(pageable, userId, LocalDateTime.now()));
                 } else {
                     return toBookingDtoList(bookingRepository
                                     .findAllByBookerIdAndStartIsAfterOrderByStartDesc(pageable, userId, LocalDateTime.now()));
@@ -153,7 +375,7 @@ public class BookingServiceImpl implements BookingService {
             case WAITING:
                 if (isOwner) {
                     return toBookingDtoList(bookingRepository
-                                    .findAllByItemIdInAndStatusIsOrderByStartDesc(pageable, itemsId, Status.WAITING));
+                                    .findAllByItem_UserIdAndStatusIsOrderByStartDesc(pageable, userId, Status.WAITING));
                 } else {
                     return toBookingDtoList(bookingRepository
                                     .findAllByBookerIdAndStatusIsOrderByStartDesc(pageable, userId, Status.WAITING));
@@ -161,7 +383,7 @@ public class BookingServiceImpl implements BookingService {
             case REJECTED:
                 if (isOwner) {
                     return toBookingDtoList(bookingRepository
-                                    .findAllByItemIdInAndStatusIsOrderByStartDesc(pageable, itemsId, Status.REJECTED));
+                                    .findAllByItem_UserIdAndStatusIsOrderByStartDesc(pageable, userId, Status.REJECTED));
                 } else {
                     return toBookingDtoList(bookingRepository
                                     .findAllByBookerIdAndStatusIsOrderByStartDesc(pageable, userId, Status.REJECTED));
@@ -171,6 +393,97 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    private BookingCursorPage getBookingsPage(SeekCursor cursor, Integer size, String state, Long userId, Boolean isOwner) {
+        List<Booking> bookings = seekBookings(cursor, PageRequest.of(0, size), state, userId, isOwner);
+
+        String nextCursor = null;
+        if (bookings.size() == size) {
+            Booking last = bookings.get(bookings.size() - 1);
+            nextCursor = new SeekCursor(last.getStart(), last.getId()).encode();
+        }
+        return BookingCursorPage.builder()
+                .bookings(toBookingDtoList(bookings))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private List<Booking> seekBookings(SeekCursor cursor, Pageable pageable, String state, Long userId, Boolean isOwner) {
+        LocalDateTime start = cursor.getDate();
+        Long id = cursor.getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        switch (State.getEnumValue(state.toUpperCase())) {
+            case ALL:
+                return isOwner ? bookingRepository.seekAllByOwnerId(userId, start, id, pageable)
+                        : bookingRepository.seekAllByBookerId(userId, start, id, pageable);
+            case CURRENT:
+                return isOwner ? bookingRepository.seekCurrentByOwnerId(userId, start, id, now, pageable)
+                        : bookingRepository.seekCurrentByBookerId(userId, start, id, now, pageable);
+            case PAST:
+                return isOwner ? bookingRepository.seekPastByOwnerId(userId, start, id, now, pageable)
+                        : bookingRepository.seekPastByBookerId(userId, start, id, now, pageable);
+            case FUTURE:
+                return isOwner ? bookingRepository.seekFutureByOwnerId(userId, start, id, now, pageable)
+                        : bookingRepository.seekFutureByBookerId(userId, start, id, now, pageable);
+            case WAITING:
+                return isOwner ? bookingRepository.seekByOwnerIdAndStatus(userId, start, id, Status.WAITING, pageable)
+                        : bookingRepository.seekByBookerIdAndStatus(userId, start, id, Status.WAITING, pageable);
+            case REJECTED:
+                return isOwner ? bookingRepository.seekByOwnerIdAndStatus(userId, start, id, Status.REJECTED, pageable)
+                        : bookingRepository.seekByBookerIdAndStatus(userId, start, id, Status.REJECTED, pageable);
+            default:
+                throw new IncorrectStatusException("Unknown state: " + state);
+        }
+    }
+
+    /**
+     * Если обновлено меньше строк, чем ожидалось, часть бронирований успел изменить параллельный запрос:
+     * успешными считаются те, что после обновления находятся в целевом статусе
+     */
+    /**
+     * Сначала блокируются строки, которые ещё в статусе WAITING, затем они же обновляются одним update.
+     * Решёнными этим вызовом считаются только заблокированные строки, поэтому бронирование, статус которого
+     * параллельно сменил другой запрос, не попадёт в результат обоих
+     */
+    private Set<Long> applyDecision(List<Long> bookingIds, Long ownerId, Status status) {
+        if (bookingIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<Long> locked = bookingRepository.lockIdsByIdInAndOwnerIdAndStatus(bookingIds, ownerId,
+                Status.WAITING.name());
+        if (locked.isEmpty()) {
+            return Collections.emptySet();
+        }
+        bookingRepository.updateStatusByIdInAndOwnerId(locked, ownerId, Status.WAITING, status);
+        return new HashSet<>(locked);
+    }
+
+    private void validateBooking(Booking booking) {
+        Item item = booking.getItem();
+
+        if (item.getUser().equals(booking.getBooker())) {
+            throw new NotFoundException("Owner " + booking.getBooker().getId() + " can't book his item");
+        }
+        if (!item.getAvailable()) {
+            throw new IncorrectBookingException("Item " + item.getId() + " is booked");
+        }
+        if (booking.getStart().isAfter(booking.getEnd())) {
+            throw new IncorrectBookingException("Start cannot be later than end");
+        }
+        bookingIntervalIndex.checkAvailability(item.getId(), booking.getStart(), booking.getEnd());
+        if (itemLocks.isDistributed() && bookingRepository.existsOverlapping(item.getId(),
+                booking.getStart(), booking.getEnd(), List.of(Status.WAITING, Status.APPROVED))) {
+            throw new IncorrectBookingException("Item " + item.getId() + " is already booked for this time");
+        }
+    }
+
+    private boolean overlapsAny(Booking booking, List<Booking> bookings) {
+        return bookings.stream()
+                .anyMatch(other -> other.getItem().getId().equals(booking.getItem().getId())
+                        && other.getStart().isBefore(booking.getEnd())
+                        && booking.getStart().isBefore(other.getEnd()));
+    }
+
     private User getUserById(Long userId) {
         return userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
     }
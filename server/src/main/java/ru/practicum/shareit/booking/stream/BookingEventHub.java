@@ -0,0 +1,167 @@
+package ru.practicum.shareit.booking.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.utilitary.TransactionHooks;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Рассылка событий бронирований подписчикам-владельцам внутри процесса.
+ * У каждого подписчика своя ограниченная очередь, которую разбирает общий пул отправителей,
+ * поэтому медленный клиент не задерживает остальных. При переполнении очереди поток закрывается,
+ * клиент переподключается и перечитывает ожидающие бронирования обычным запросом
+ */
+@Slf4j
+@Component
+public class BookingEventHub {
+    private static final BookingEventDto HEARTBEAT = BookingEventDto.builder().build();
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final ExecutorService senders;
+    private final long timeout;
+    private final int bufferSize;
+    private final Counter overflowCounter;
+
+    public BookingEventHub(@Value("${shareit.booking.stream.timeout}") long timeout,
+                           @Value("${shareit.booking.stream.buffer-size}") int bufferSize,
+                           @Value("${shareit.booking.stream.senders}") int senderCount,
+                           MeterRegistry meterRegistry) {
+        this.timeout = timeout;
+        this.bufferSize = bufferSize;
+        this.senders = Executors.newFixedThreadPool(senderCount, runnable -> {
+            Thread thread = new Thread(runnable, "booking-stream-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("booking.stream.subscribers", subscribers, map -> map.values().stream().mapToInt(Set::size).sum())
+                .description("Number of open owner booking streams")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("booking.stream.overflow")
+                .description("Number of owner booking streams closed because their buffer was full")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long ownerId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        Subscriber subscriber = new Subscriber(ownerId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        subscribers.compute(ownerId, (key, set) -> {
+            Set<Subscriber> ownerSubscribers = set == null ? ConcurrentHashMap.newKeySet() : set;
+            ownerSubscribers.add(subscriber);
+            return ownerSubscribers;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Событие уходит подписчикам только после фиксации транзакции
+     */
+    public void publish(Long ownerId, BookingEventDto event) {
+        TransactionHooks.afterCommit(() -> dispatch(ownerId, event));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.stream.heartbeat}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> {
+            if (subscriber.queue.offer(HEARTBEAT)) {
+                schedule(subscriber);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void dispatch(Long ownerId, BookingEventDto event) {
+        for (Subscriber subscriber : subscribers.getOrDefault(ownerId, Set.of())) {
+            if (subscriber.queue.offer(event)) {
+                schedule(subscriber);
+            } else {
+                overflowCounter.increment();
+                log.warn("Booking stream of owner {} is closed: buffer of {} events is full", ownerId, bufferSize);
+                remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            BookingEventDto event;
+            while ((event = subscriber.queue.poll()) != null) {
+                send(subscriber, event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            remove(subscriber);
+            subscriber.queue.clear();
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber, BookingEventDto event) throws IOException {
+        if (event == HEARTBEAT) {
+            subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            return;
+        }
+        subscriber.emitter.send(SseEmitter.event()
+                .id(String.valueOf(eventIds.incrementAndGet()))
+                .name(event.getType().name())
+                .data(event, MediaType.APPLICATION_JSON));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.ownerId, (ownerId, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static class Subscriber {
+        private final Long ownerId;
+        private final SseEmitter emitter;
+        private final Queue<BookingEventDto> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(Long ownerId, SseEmitter emitter, Queue<BookingEventDto> queue) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package ru.practicum.shareit.comment.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.comment.entity.Comment;
 
 import java.util.List;
@@ -9,5 +12,14 @@ import java.util.List;
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findAllByItemId(Long itemId);
 
+    @EntityGraph(attributePaths = "author")
+    List<Comment> findAllByItemId(Long itemId, Pageable pageable);
+
+    long countByItemId(Long itemId);
+
+    @Query("select distinct c.item.id from Comment c where c.author.id = ?1")
+    List<Long> findItemIdsByAuthorId(Long authorId);
+
+    @EntityGraph(attributePaths = "author")
     List<Comment> findAllByItemIdIn(List<Long> items, Sort sort);
 }
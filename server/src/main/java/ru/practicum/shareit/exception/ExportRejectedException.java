@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class ExportRejectedException extends RuntimeException {
+    public ExportRejectedException() {
+        super("Too many exports in progress, retry later");
+    }
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.handler;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -11,7 +12,7 @@ import ru.practicum.shareit.exception.*;
 @RestControllerAdvice()
 public class ErrorHandler {
 
-    @ExceptionHandler({IncorrectCommentException.class, IncorrectBookingException.class})
+    @ExceptionHandler({IncorrectCommentException.class, IncorrectBookingException.class, IncorrectCursorException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleValidationException(RuntimeException exception) {
         log.error("BAD_REQUEST: 400 : {}", exception.getMessage());
@@ -33,6 +34,20 @@ public class ErrorHandler {
         return new ErrorResponse(exception.getMessage());
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailure(final ObjectOptimisticLockingFailureException exception) {
+        log.error("CONFLICT: 409 : {}", exception.getMessage());
+        return new ErrorResponse("Object was modified concurrently, retry the request");
+    }
+
+    @ExceptionHandler(ExportRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleExportRejected(final ExportRejectedException exception) {
+        log.error("SERVICE_UNAVAILABLE: 503 : {}", exception.getMessage());
+        return new ErrorResponse(exception.getMessage());
+    }
+
     @ExceptionHandler(IncorrectStatusException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleThrowable(final IncorrectStatusException exception) {
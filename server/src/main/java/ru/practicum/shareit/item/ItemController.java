@@ -3,11 +3,15 @@ package ru.practicum.shareit.item;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static ru.practicum.shareit.utilitary.Constants.HEADER_USER_ID;
@@ -22,8 +26,12 @@ public class ItemController {
 
     @GetMapping("/{itemId}")
     public ItemDto getItemById(@RequestHeader(HEADER_USER_ID) Long ownerId,
-                               @PathVariable Long itemId) {
+                               @PathVariable Long itemId,
+                               WebRequest request) {
         log.info("GET: request was received to the endpoint: '/items' to receive an item with ID={}", itemId);
+        if (request.checkNotModified(itemService.getItemETag(itemId, ownerId))) {
+            return null;
+        }
         return itemService.getItemsByOwner(itemId, ownerId);
     }
 
@@ -35,6 +43,14 @@ public class ItemController {
         return itemService.getItemsByOwner(ownerId, from, size);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public List<TimeSlotDto> getAvailability(@PathVariable Long itemId,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("GET: request was received to the endpoint: '/items/{itemId}/availability' to receive free slots of the item with ID={}", itemId);
+        return itemService.getAvailability(itemId, from, to);
+    }
+
     @GetMapping("search")
     public List<ItemDto> searchItems(@RequestParam String text,
                                      @RequestParam(defaultValue = "0") Integer from,
@@ -49,6 +65,12 @@ public class ItemController {
         return itemService.create(itemDto, ownerId);
     }
 
+    @PostMapping("/batch")
+    public List<ItemDto> createAll(@RequestHeader(HEADER_USER_ID) Long ownerId, @RequestBody List<ItemDto> itemDtos) {
+        log.info("POST: request was received to the endpoint: '/items/batch' to add {} items by the owner with ID={}", itemDtos.size(), ownerId);
+        return itemService.createAll(itemDtos, ownerId);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto update(@RequestHeader(HEADER_USER_ID) Long ownerId,
                           @PathVariable Long itemId,
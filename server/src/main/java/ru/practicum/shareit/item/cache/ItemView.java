@@ -0,0 +1,40 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Общая для всех пользователей часть карточки вещи: поля вещи и отзывы.
+ * Dto изменяемые, поэтому наружу отдаются только копии
+ */
+@Getter
+@RequiredArgsConstructor
+public class ItemView {
+    private final ItemDto item;
+    private final List<CommentDto> comments;
+    private final Long ownerId;
+    private final Long version;
+
+    public ItemDto toItemDto() {
+        return ItemDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .comments(comments.stream()
+                        .map(comment -> CommentDto.builder()
+                                .id(comment.getId())
+                                .text(comment.getText())
+                                .created(comment.getCreated())
+                                .authorName(comment.getAuthorName())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.item.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.utilitary.TransactionHooks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Кэш карточек вещей для GET /items/{itemId}.
+ * Последнее и ближайшее бронирования хранятся отдельно от карточки: запись живёт не дольше,
+ * чем до начала ближайшего бронирования, после которого оно становится последним.
+ * Инвалидация выполняется после коммита изменяющей транзакции
+ */
+@Component
+public class ItemViewCache {
+    private final Cache<Long, ItemView> views;
+    private final Cache<Long, OwnerBookings> ownerBookings;
+
+    public ItemViewCache(@Value("${shareit.cache.item-view.max-size}") long maxSize,
+                         @Value("${shareit.cache.item-view.ttl}") Duration ttl,
+                         MeterRegistry meterRegistry) {
+        views = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        ownerBookings = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilNextBookingExpiry(ttl))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, views, "itemView");
+        CaffeineCacheMetrics.monitor(meterRegistry, ownerBookings, "itemOwnerBookings");
+    }
+
+    public ItemView getView(Long itemId, Function<Long, ItemView> loader) {
+        return views.get(itemId, loader);
+    }
+
+    public OwnerBookings getOwnerBookings(Long itemId, Function<Long, OwnerBookings> loader) {
+        return ownerBookings.get(itemId, loader);
+    }
+
+    public void evictView(Long itemId) {
+        TransactionHooks.afterCommit(() -> views.invalidate(itemId));
+    }
+
+    public void evictOwnerBookings(Long itemId) {
+        TransactionHooks.afterCommit(() -> ownerBookings.invalidate(itemId));
+    }
+
+    public void evictItem(Long itemId) {
+        TransactionHooks.afterCommit(() -> {
+            views.invalidate(itemId);
+            ownerBookings.invalidate(itemId);
+        });
+    }
+
+    public void evictAllViews() {
+        TransactionHooks.afterCommit(views::invalidateAll);
+    }
+
+    private static class UntilNextBookingExpiry implements Expiry<Long, OwnerBookings> {
+        private final Duration ttl;
+
+        UntilNextBookingExpiry(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        @Override
+        public long expireAfterCreate(Long itemId, OwnerBookings bookings, long currentTime) {
+            if (bookings.getNextBooking() == null) {
+                return ttl.toNanos();
+            }
+            Duration untilNext = Duration.between(LocalDateTime.now(), bookings.getNextBooking().getStart());
+            if (untilNext.isNegative()) {
+                return 0;
+            }
+            return untilNext.compareTo(ttl) < 0 ? untilNext.toNanos() : ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long itemId, OwnerBookings bookings, long currentTime, long currentDuration) {
+            return expireAfterCreate(itemId, bookings, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long itemId, OwnerBookings bookings, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
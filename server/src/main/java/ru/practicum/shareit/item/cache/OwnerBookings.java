@@ -0,0 +1,45 @@
+package ru.practicum.shareit.item.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+/**
+ * Последнее и ближайшее подтверждённые бронирования вещи, видимые только владельцу
+ */
+@Getter
+@RequiredArgsConstructor
+public class OwnerBookings {
+    private final BookingShortDto lastBooking;
+    private final BookingShortDto nextBooking;
+    private final Long version;
+
+    public BookingShortDto copyLastBooking() {
+        return copy(lastBooking);
+    }
+
+    public BookingShortDto copyNextBooking() {
+        return copy(nextBooking);
+    }
+
+    private static BookingShortDto copy(BookingShortDto booking) {
+        if (booking == null) {
+            return null;
+        }
+        ItemDto item = booking.getItem();
+        return BookingShortDto.builder()
+                .id(booking.getId())
+                .item(item == null ? null : ItemDto.builder()
+                        .id(item.getId())
+                        .name(item.getName())
+                        .description(item.getDescription())
+                        .available(item.getAvailable())
+                        .requestId(item.getRequestId())
+                        .build())
+                .bookerId(booking.getBookerId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .build();
+    }
+}
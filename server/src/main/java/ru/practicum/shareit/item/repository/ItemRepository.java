@@ -1,10 +1,14 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.utilitary.EntityVersion;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
@@ -13,17 +17,30 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findByUserIdOrderById(Long userId, PageRequest pageRequest);
 
     @Query("select i from Item i " +
-            "   where upper(i.name) like upper(concat('%', ?1, '%')) " +
-            "   or upper(i.description) like upper(concat('%', ?1, '%')) " +
-            "   and i.available = true ")
-    List<Item> search(String text, PageRequest pageRequest);
+            "   where i.available = true " +
+            "   and (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            "   or upper(i.description) like upper(concat('%', ?1, '%'))) ")
+    List<Item> search(String text, Pageable pageable);
+
+    @Query(value = "SELECT i.* FROM items i " +
+            "   WHERE i.is_available = true " +
+            "   AND i.search_vector @@ to_tsquery('russian', ?1) " +
+            "   ORDER BY ts_rank(i.search_vector, to_tsquery('russian', ?1)) DESC, i.id",
+            nativeQuery = true)
+    List<Item> fullTextSearch(String tsQuery, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE items SET search_vector = to_tsvector('russian', ?2) WHERE id = ?1", nativeQuery = true)
+    void updateSearchVector(Long itemId, String document);
 
     List<Item> findByUserId(Long userId);
 
-    @Query("SELECT i.id FROM Item AS i " +
-            "JOIN User As u ON i.user.id=u.id " +
-            "WHERE i.user.id = ?1")
-    List<Long> findAllItemIdByOwnerId(Long ownerId);
-
     Boolean existsItemByUserId(Long ownerId);
+
+    List<Item> findAllByAvailableTrue();
+
+    List<Item> findAllByRequestIdIn(Collection<Long> requestIds);
+
+    @Query("select i.id as id, i.version as version from Item i where i.request.id = ?1 order by i.id")
+    List<EntityVersion> findVersionsByRequestId(Long requestId);
 }
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Полнотекстовый поиск PostgreSQL по колонке items.search_vector с GIN-индексом.
+ * Каждое слово запроса ищется как префикс, результаты упорядочены по ts_rank.
+ * Семантика отличается от like: совпадают начала словоформ после стемминга конфигурацией russian,
+ * а не произвольные подстроки ("рель" не найдёт "Дрель"), поэтому движок включается явно
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "fulltext")
+public class FullTextItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        String query = Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return itemRepository.fullTextSearch(query, pageable);
+    }
+
+    @Override
+    public void onItemSaved(Item item) {
+        itemRepository.updateSearchVector(item.getId(), item.getName() + " " + item.getDescription());
+    }
+
+    @Override
+    public void onItemDeleted(Long itemId) {
+    }
+}
@@ -0,0 +1,216 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.utilitary.LongKeyMap;
+import ru.practicum.shareit.utilitary.LongPostingList;
+import ru.practicum.shareit.utilitary.TransactionHooks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Поиск подстроки с семантикой like по инвертированному индексу названий и описаний доступных вещей.
+ * В индексе все подстроки длиной от одного до трёх символов: запрос из одного-двух символов отвечается
+ * одним списком, длинный - пересечением списков его триграмм с проверкой вхождения подстроки.
+ * Индекс строится при старте и поддерживается при создании, изменении и удалении вещей,
+ * из БД по первичному ключу читается только запрошенная страница
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "trigram")
+public class TrigramItemSearchEngine implements ItemSearchEngine {
+    private static final int GRAM = 3;
+
+    private final ItemRepository itemRepository;
+
+    private final LongKeyMap<LongPostingList> postings = new LongKeyMap<>();
+    private final LongKeyMap<String[]> documents = new LongKeyMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<Item> items = itemRepository.findAllByAvailableTrue();
+        lock.writeLock().lock();
+        try {
+            items.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Trigram search index is built: {} items, {} grams", documents.size(), postings.size());
+    }
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        List<Long> pageIds = findPage(normalize(text), (int) pageable.getOffset(), pageable.getPageSize());
+        if (pageIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Item> items = itemRepository.findAllById(pageIds);
+        items.sort(Comparator.comparing(Item::getId));
+        return items;
+    }
+
+    @Override
+    public void onItemSaved(Item item) {
+        Long itemId = item.getId();
+        String name = item.getName();
+        String description = item.getDescription();
+        boolean available = Boolean.TRUE.equals(item.getAvailable());
+
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(itemId);
+                if (available) {
+                    add(itemId, name, description);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public void onItemDeleted(Long itemId) {
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private List<Long> findPage(String text, int offset, int size) {
+        List<Long> page = new ArrayList<>(size);
+        if (text.isEmpty()) {
+            return page;
+        }
+        int skipped = 0;
+
+        lock.readLock().lock();
+        try {
+            for (long id : findCandidates(text)) {
+                if (matches(documents.get(id), text) && skipped++ >= offset) {
+                    page.add(id);
+                    if (page.size() == size) {
+                        break;
+                    }
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Для запроса короче триграммы список его подстроки точен, для длинного - пересечение списков триграмм
+     */
+    private long[] findCandidates(String text) {
+        long[] grams = text.length() < GRAM ? new long[]{gram(text, 0, text.length())} : grams(text, GRAM, GRAM);
+        List<LongPostingList> lists = new ArrayList<>();
+        for (long gram : grams) {
+            LongPostingList list = postings.get(gram);
+            if (list == null) {
+                return new long[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(LongPostingList::size));
+
+        long[] candidates = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+            candidates = lists.get(i).intersect(candidates);
+        }
+        return candidates;
+    }
+
+    private void add(Item item) {
+        add(item.getId(), item.getName(), item.getDescription());
+    }
+
+    private void add(long itemId, String name, String description) {
+        String[] document = {normalize(name), normalize(description)};
+        documents.put(itemId, document);
+        for (String field : document) {
+            for (long gram : grams(field, 1, GRAM)) {
+                postings.computeIfAbsent(gram, key -> new LongPostingList()).add(itemId);
+            }
+        }
+    }
+
+    private void remove(long itemId) {
+        String[] document = documents.remove(itemId);
+        if (document == null) {
+            return;
+        }
+        for (String field : document) {
+            for (long gram : grams(field, 1, GRAM)) {
+                LongPostingList list = postings.get(gram);
+                if (list != null) {
+                    list.remove(itemId);
+                    if (list.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean matches(String[] document, String text) {
+        return document[0].contains(text) || document[1].contains(text);
+    }
+
+    /**
+     * Различные подстроки text длиной от minLength до maxLength, упакованные в long, по возрастанию
+     */
+    private static long[] grams(String text, int minLength, int maxLength) {
+        long[] grams = new long[text.length() * (maxLength - minLength + 1)];
+        int count = 0;
+        for (int length = minLength; length <= maxLength; length++) {
+            for (int i = 0; i + length <= text.length(); i++) {
+                grams[count++] = gram(text, i, length);
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || grams[distinct - 1] != grams[i]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Длина в старших 16 битах, символы - в младших 48, поэтому подстроки разной длины не совпадают
+     */
+    private static long gram(String text, int start, int length) {
+        long gram = length;
+        for (int i = start; i < start + length; i++) {
+            gram = (gram << 16) | text.charAt(i);
+        }
+        return gram << (16 * (GRAM - length));
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toUpperCase(Locale.ROOT);
+    }
+}
@@ -1,23 +1,31 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
 
     ItemDto getItemsByOwner(Long itemId, Long ownerId);
 
+    String getItemETag(Long itemId, Long userId);
+
     List<ItemDto> getItemsByOwner(Long ownerId, Integer from, Integer size);
 
     List<ItemDto> search(String text, Integer from, Integer size);
 
     ItemDto create(ItemDto itemDto, Long ownerId);
 
+    List<ItemDto> createAll(List<ItemDto> itemDtos, Long ownerId);
+
     CommentDto addComment(Long ownerId, Long itemId, CommentDto commentDto);
 
     ItemDto update(ItemDto itemDto, Long itemId, Long ownerId);
 
     void delete(Long itemId);
+
+    List<TimeSlotDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
 }
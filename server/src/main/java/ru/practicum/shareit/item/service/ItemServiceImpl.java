@@ -4,35 +4,48 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
-import ru.practicum.shareit.booking.entity.Booking;
-import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.dto.CommentMapper;
 import ru.practicum.shareit.comment.entity.Comment;
 import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.exception.IncorrectBookingException;
 import ru.practicum.shareit.exception.IncorrectCommentException;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.cache.ItemView;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.cache.OwnerBookings;
 import ru.practicum.shareit.item.dto.ItemDto;
-import ru.practicum.shareit.item.dto.ItemMapper;
 import ru.practicum.shareit.item.entity.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.view.ItemViewMapper;
+import ru.practicum.shareit.item.view.ItemViewRecord;
+import ru.practicum.shareit.item.view.ItemViewService;
+import ru.practicum.shareit.request.entity.ItemRequest;
+import ru.practicum.shareit.request.match.RequestMatchService;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.entity.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utilitary.ETags;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static ru.practicum.shareit.booking.dto.BookingMapper.toBookingShortDto;
 import static ru.practicum.shareit.comment.dto.CommentMapper.toCommentDtoList;
 import static ru.practicum.shareit.item.dto.ItemMapper.*;
 
@@ -46,6 +59,11 @@ public class ItemServiceImpl implements ItemService {
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemViewCache itemViewCache;
+    private final ItemViewService itemViewService;
+    private final RequestMatchService requestMatchService;
 
     @Override
     @Transactional
@@ -58,10 +76,45 @@ public class ItemServiceImpl implements ItemService {
                     .orElseThrow(() -> new NotFoundException("Request with id "  + itemDto.getRequestId() + " not found")));
         }
         itemRepository.save(item);
+        itemSearchEngine.onItemSaved(item);
+        itemViewService.createForNewItems(List.of(item));
+        requestMatchService.onItemsCreated(List.of(item));
 
         return toEntityItemDto(item);
     }
 
+    @Override
+    @Transactional
+    public List<ItemDto> createAll(List<ItemDto> itemDtos, Long userId) {
+        User user = getUserById(userId);
+
+        Set<Long> requestIds = itemDtos.stream()
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, ItemRequest> requests = itemRequestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+
+        List<Item> items = new ArrayList<>(itemDtos.size());
+        for (ItemDto itemDto : itemDtos) {
+            Item item = fromEntityItemDto(itemDto, user);
+            if (itemDto.getRequestId() != null) {
+                ItemRequest request = requests.get(itemDto.getRequestId());
+                if (request == null) {
+                    throw new NotFoundException("Request with id "  + itemDto.getRequestId() + " not found");
+                }
+                item.setRequest(request);
+            }
+            items.add(item);
+        }
+        itemRepository.saveAll(items);
+        items.forEach(itemSearchEngine::onItemSaved);
+        itemViewService.createForNewItems(items);
+        requestMatchService.onItemsCreated(items);
+
+        return toItemDtoList(items);
+    }
+
     @Override
     @Transactional
     public ItemDto update(ItemDto itemDto, Long itemId, Long ownerId) {
@@ -95,6 +148,10 @@ public class ItemServiceImpl implements ItemService {
         }
 
         itemRepository.save(newItem);
+        itemSearchEngine.onItemSaved(newItem);
+        itemViewService.refresh(newItem);
+        itemViewCache.evictItem(itemId);
+        requestMatchService.onItemUpdated(newItem);
 
         return toEntityItemDto(newItem);
     }
@@ -103,6 +160,20 @@ public class ItemServiceImpl implements ItemService {
     @Transactional
     public void delete(Long itemId) {
         itemRepository.deleteById(itemId);
+        itemSearchEngine.onItemDeleted(itemId);
+        bookingIntervalIndex.evict(itemId);
+        itemViewCache.evictItem(itemId);
+    }
+
+    @Override
+    public List<TimeSlotDto> getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new IncorrectBookingException("Start cannot be later than end");
+        }
+        if (!bookingIntervalIndex.isLoaded(itemId) && !itemRepository.existsById(itemId)) {
+            throw new ItemNotFoundException(itemId);
+        }
+        return bookingIntervalIndex.getFreeSlots(itemId, from, to);
     }
 
 
@@ -114,52 +185,48 @@ public class ItemServiceImpl implements ItemService {
         if (text.isEmpty()) {
             return Collections.emptyList();
         } else {
-            return toItemDtoList(itemRepository.search(text, pageRequest));
+            return toItemDtoList(itemSearchEngine.search(text, pageRequest));
         }
     }
 
     @Override
     @Transactional
     public ItemDto getItemsByOwner(Long itemId, Long ownerId) {
-
-        if (!itemRepository.existsById(itemId)) {
-            throw new ItemNotFoundException(itemId);
-        }
-        Item item = itemRepository.findById(itemId).get();
-
-        ItemDto itemDto = ItemMapper.toEntityItemDto(item);
+        ItemView view = itemViewCache.getView(itemId, this::loadItemView);
 
         if (!userRepository.existsById(ownerId)) {
             throw new UserNotFoundException(ownerId);
         }
 
-        if (item.getUser().getId().equals(ownerId)) {
-            Optional<Booking> lastBooking = bookingRepository
-                    .findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(itemId, Status.APPROVED, LocalDateTime.now());
-            Optional<Booking> nextBooking = bookingRepository
-                    .findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(itemId, Status.APPROVED, LocalDateTime.now());
-            if (lastBooking.isPresent()) {
-                itemDto.setLastBooking(toBookingShortDto(lastBooking.get()));
-            } else {
-                itemDto.setLastBooking(null);
-            }
+        ItemDto itemDto = view.toItemDto();
 
-            if (nextBooking.isPresent()) {
-                itemDto.setNextBooking(toBookingShortDto(nextBooking.get()));
-            } else {
-                itemDto.setNextBooking(null);
-            }
+        if (view.getOwnerId().equals(ownerId)) {
+            OwnerBookings ownerBookings = itemViewCache.getOwnerBookings(itemId, this::loadOwnerBookings);
+            itemDto.setLastBooking(ownerBookings.copyLastBooking());
+            itemDto.setNextBooking(ownerBookings.copyNextBooking());
         }
 
-        List<Comment> commentList = commentRepository.findAllByItemId(itemId);
+        return itemDto;
+    }
+
+    /**
+     * Версии берутся из тех же закэшированных частей карточки, из которых собирается ответ.
+     * Бронирования устаревшей строки пересчитываются при чтении без смены её версии,
+     * поэтому в ETag владельца входят и id последнего и ближайшего бронирований
+     */
+    @Override
+    @Transactional
+    public String getItemETag(Long itemId, Long userId) {
+        ItemView view = itemViewCache.getView(itemId, this::loadItemView);
 
-        if (!commentList.isEmpty()) {
-            itemDto.setComments(toCommentDtoList(commentList));
-        } else {
-            itemDto.setComments(Collections.emptyList());
-        }
+        checkUser(userId);
 
-        return itemDto;
+        if (view.getOwnerId().equals(userId)) {
+            OwnerBookings ownerBookings = itemViewCache.getOwnerBookings(itemId, this::loadOwnerBookings);
+            return ETags.of("item", itemId, view.getVersion(), ownerBookings.getVersion(),
+                    bookingId(ownerBookings.getLastBooking()), bookingId(ownerBookings.getNextBooking()));
+        }
+        return ETags.of("item", itemId, view.getVersion());
     }
 
     @Override
@@ -172,6 +239,8 @@ public class ItemServiceImpl implements ItemService {
             throw new IncorrectCommentException("User doesn't use this item");
         }
         Comment comment = commentRepository.save(CommentMapper.fromComment(commentDto, item, user, LocalDateTime.now()));
+        itemViewService.refresh(item);
+        itemViewCache.evictView(itemId);
         return CommentMapper.toCommentDto(comment);
     }
 
@@ -181,26 +250,58 @@ public class ItemServiceImpl implements ItemService {
 
         PageRequest pageRequest = PageRequest.of(from / size, size);
 
-        List<Item> items = itemRepository.findByUserIdOrderById(ownerId, pageRequest);
-        List<ItemDto> itemDtos = ItemMapper.toItemDtoList(items);
+        List<ItemViewRecord> records = itemViewService.findByOwner(ownerId, pageRequest);
+        if (records.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, List<CommentDto>> comments = new HashMap<>();
+        List<Long> itemIdsWithMoreComments = new ArrayList<>();
+        for (ItemViewRecord record : records) {
+            List<CommentDto> allComments = itemViewService.getAllComments(record);
+            if (allComments != null) {
+                comments.put(record.getItemId(), allComments);
+            } else {
+                itemIdsWithMoreComments.add(record.getItemId());
+            }
+        }
+        if (!itemIdsWithMoreComments.isEmpty()) {
+            comments.putAll(commentRepository.findAllByItemIdIn(
+                            itemIdsWithMoreComments, Sort.by(Sort.Direction.ASC, "created")).stream()
+                    .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                            Collectors.mapping(CommentMapper::toCommentDto, Collectors.toList()))));
+        }
 
-        List<Booking> bookings = bookingRepository.findAllByItem_UserId(ownerId, Sort.by(Sort.Direction.ASC, "start"));
-        List<BookingShortDto> bookingShortDtos = bookings.stream()
-                .map(BookingMapper::toBookingShortDto)
+        return records.stream()
+                .map(record -> {
+                    ItemDto itemDto = ItemViewMapper.toItemDto(record);
+                    itemDto.setLastBooking(ItemViewMapper.toLastBooking(record));
+                    itemDto.setNextBooking(ItemViewMapper.toNextBooking(record));
+                    itemDto.setComments(comments.getOrDefault(record.getItemId(), Collections.emptyList()));
+                    return itemDto;
+                })
                 .collect(Collectors.toList());
+    }
+
+    private ItemView loadItemView(Long itemId) {
+        ItemViewRecord record = itemViewService.get(itemId);
+        List<CommentDto> comments = itemViewService.getAllComments(record);
+        if (comments == null) {
+            comments = toCommentDtoList(commentRepository.findAllByItemId(itemId));
+        }
+
+        return new ItemView(ItemViewMapper.toItemDto(record), comments, record.getOwnerId(), record.getVersion());
+    }
 
-        List<Comment> comments = commentRepository.findAllByItemIdIn(
-                items.stream()
-                        .map(Item::getId)
-                        .collect(Collectors.toList()),
-                Sort.by(Sort.Direction.ASC, "created"));
+    private OwnerBookings loadOwnerBookings(Long itemId) {
+        ItemViewRecord record = itemViewService.get(itemId);
 
-        itemDtos.forEach(itemDto -> {
-            setBookings(itemDto, bookingShortDtos);
-            setComments(itemDto, comments);
-        });
+        return new OwnerBookings(ItemViewMapper.toLastBooking(record), ItemViewMapper.toNextBooking(record),
+                record.getVersion());
+    }
 
-        return itemDtos;
+    private static Long bookingId(BookingShortDto booking) {
+        return booking == null ? null : booking.getId();
     }
 
     private User getUserById(Long userId) {
@@ -212,22 +313,4 @@ public class ItemServiceImpl implements ItemService {
             throw new UserNotFoundException(userId);
         }
     }
-
-    private void setBookings(ItemDto itemDto, List<BookingShortDto> bookings) {
-        itemDto.setLastBooking(bookings.stream()
-                .filter(booking -> booking.getItem().getId().equals(itemDto.getId()) &&
-                        booking.getStart().isBefore(LocalDateTime.now()))
-                .reduce((a, b) -> b).orElse(null));
-        itemDto.setNextBooking(bookings.stream()
-                .filter(booking -> booking.getItem().getId().equals(itemDto.getId()) &&
-                        booking.getStart().isAfter(LocalDateTime.now()))
-                .reduce((a, b) -> a).orElse(null));
-    }
-
-    private void setComments(ItemDto itemDto, List<Comment> comments) {
-        itemDto.setComments(comments.stream()
-                .filter(comment -> comment.getItem().getId().equals(itemDto.getId()))
-                .map(CommentMapper::toCommentDto)
-                .collect(Collectors.toList()));
-    }
 }
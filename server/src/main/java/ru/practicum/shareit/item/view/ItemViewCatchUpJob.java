@@ -0,0 +1,22 @@
+package ru.practicum.shareit.item.view;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemViewCatchUpJob {
+
+    private final ItemViewService itemViewService;
+
+    @Scheduled(fixedDelayString = "${shareit.item-view.catch-up-delay}")
+    public void catchUp() {
+        int refreshed = itemViewService.refreshStale();
+        if (refreshed > 0) {
+            log.debug("Item view: {} rows refreshed", refreshed);
+        }
+    }
+}
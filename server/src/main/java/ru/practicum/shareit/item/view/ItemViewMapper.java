@@ -0,0 +1,70 @@
+package ru.practicum.shareit.item.view;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.entity.Booking;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.entity.Item;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ItemViewMapper {
+
+    public static ItemDto toItemDto(ItemViewRecord record) {
+        return ItemDto.builder()
+                .id(record.getItemId())
+                .name(record.getName())
+                .description(record.getDescription())
+                .available(record.getAvailable())
+                .requestId(record.getRequestId())
+                .build();
+    }
+
+    public static BookingShortDto toLastBooking(ItemViewRecord record) {
+        if (record.getLastBookingId() == null) {
+            return null;
+        }
+        return BookingShortDto.builder()
+                .id(record.getLastBookingId())
+                .item(toItemDto(record))
+                .bookerId(record.getLastBookerId())
+                .start(record.getLastStart())
+                .end(record.getLastEnd())
+                .build();
+    }
+
+    public static BookingShortDto toNextBooking(ItemViewRecord record) {
+        if (record.getNextBookingId() == null) {
+            return null;
+        }
+        return BookingShortDto.builder()
+                .id(record.getNextBookingId())
+                .item(toItemDto(record))
+                .bookerId(record.getNextBookerId())
+                .start(record.getNextStart())
+                .end(record.getNextEnd())
+                .build();
+    }
+
+    static void setItem(ItemViewRecord record, Item item) {
+        record.setOwnerId(item.getUser().getId());
+        record.setName(item.getName());
+        record.setDescription(item.getDescription());
+        record.setAvailable(item.getAvailable());
+        record.setRequestId(item.getRequest() == null ? null : item.getRequest().getId());
+    }
+
+    static void setLastBooking(ItemViewRecord record, Booking booking) {
+        record.setLastBookingId(booking == null ? null : booking.getId());
+        record.setLastBookerId(booking == null ? null : booking.getBooker().getId());
+        record.setLastStart(booking == null ? null : booking.getStart());
+        record.setLastEnd(booking == null ? null : booking.getEnd());
+    }
+
+    static void setNextBooking(ItemViewRecord record, Booking booking) {
+        record.setNextBookingId(booking == null ? null : booking.getId());
+        record.setNextBookerId(booking == null ? null : booking.getBooker().getId());
+        record.setNextStart(booking == null ? null : booking.getStart());
+        record.setNextEnd(booking == null ? null : booking.getEnd());
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.item.view;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Денормализованное представление вещи: поля вещи, последнее и ближайшее подтверждённые бронирования,
+ * число отзывов и последние отзывы в JSON
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "item_view")
+public class ItemViewRecord {
+    @Id
+    @EqualsAndHashCode.Include
+    @Column(name = "item_id")
+    private Long itemId;
+    @Column(name = "owner_id")
+    private Long ownerId;
+    private String name;
+    private String description;
+    @Column(name = "is_available")
+    private Boolean available;
+    @Column(name = "request_id")
+    private Long requestId;
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+    @Column(name = "last_start_date")
+    private LocalDateTime lastStart;
+    @Column(name = "last_end_date")
+    private LocalDateTime lastEnd;
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+    @Column(name = "next_start_date")
+    private LocalDateTime nextStart;
+    @Column(name = "next_end_date")
+    private LocalDateTime nextEnd;
+    @Column(name = "comment_count")
+    private Integer commentCount;
+    @Column(name = "latest_comments")
+    private String latestComments;
+    /**
+     * Составная версия карточки: увеличивается при каждом пересчёте строки
+     */
+    private Long version;
+}
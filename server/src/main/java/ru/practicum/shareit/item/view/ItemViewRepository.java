@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.view;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemViewRepository extends JpaRepository<ItemViewRecord, Long> {
+    /**
+     * Блокируется строка представления, а не вещи: строку вещи вставки по внешнему ключу берут в KEY SHARE
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from ItemViewRecord v where v.itemId = ?1")
+    Optional<ItemViewRecord> findForUpdate(Long itemId);
+
+    List<ItemViewRecord> findByOwnerIdOrderByItemId(Long ownerId, Pageable pageable);
+
+    /**
+     * Вещи, у которых ближайшее бронирование уже началось и должно стать последним
+     */
+    @Query("select v.itemId from ItemViewRecord v where v.nextStart <= ?1")
+    List<Long> findStaleItemIds(LocalDateTime now, Pageable pageable);
+
+    @Query("select i.id from Item i where not exists (select v.itemId from ItemViewRecord v where v.itemId = i.id)")
+    List<Long> findItemIdsWithoutView(Pageable pageable);
+}
@@ -0,0 +1,199 @@
+package ru.practicum.shareit.item.view;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.dto.CommentDto;
+import ru.practicum.shareit.comment.entity.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.exception.ItemNotFoundException;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static ru.practicum.shareit.comment.dto.CommentMapper.toCommentDtoList;
+
+/**
+ * Ведение таблицы item_view. Строка пересчитывается по исходным таблицам в транзакции,
+ * изменившей вещь, её отзывы или статус её бронирований. Строки, у которых ближайшее бронирование
+ * уже началось, переписывает только фоновая задача; чтение не блокирует и не пишет строки, а отдаёт
+ * отсоединённую копию с пересчитанными бронированиями. Каждый пересчёт увеличивает версию строки,
+ * из которой строится ETag карточки; это не @Version, чтобы параллельные пересчёты не падали,
+ * а ждали друг друга на блокировке строки
+ */
+@Service
+@RequiredArgsConstructor
+public class ItemViewService {
+    private static final TypeReference<List<CommentDto>> COMMENT_LIST = new TypeReference<>() {
+    };
+
+    private final ItemViewRepository itemViewRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final CommentRepository commentRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${shareit.item-view.latest-comments}")
+    private int latestComments;
+
+    @Value("${shareit.item-view.catch-up-batch}")
+    private int catchUpBatch;
+
+    /**
+     * Строку, которую ещё не создала фоновая задача, собирает по исходным таблицам без записи
+     */
+    @Transactional
+    public ItemViewRecord get(Long itemId) {
+        LocalDateTime now = LocalDateTime.now();
+        ItemViewRecord record = itemViewRepository.findById(itemId).orElse(null);
+        if (record == null) {
+            Item item = itemRepository.findById(itemId).orElseThrow(() -> new ItemNotFoundException(itemId));
+            record = ItemViewRecord.builder().itemId(itemId).version(0L).build();
+            fill(record, item, now);
+            return record;
+        }
+        return isStale(record, now) ? withCurrentBookings(record, now) : record;
+    }
+
+    @Transactional
+    public List<ItemViewRecord> findByOwner(Long ownerId, Pageable pageable) {
+        LocalDateTime now = LocalDateTime.now();
+        return itemViewRepository.findByOwnerIdOrderByItemId(ownerId, pageable).stream()
+                .map(record -> isStale(record, now) ? withCurrentBookings(record, now) : record)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public ItemViewRecord refresh(Long itemId) {
+        return refresh(itemRepository.findById(itemId)
+                .orElseThrow(() -> new ItemNotFoundException(itemId)));
+    }
+
+    /**
+     * Пересчёт под блокировкой строки представления: параллельные пересчёты одной вещи выполняются
+     * по очереди, и каждый видит версию, записанную предыдущим
+     */
+    @Transactional
+    public ItemViewRecord refresh(Item item) {
+        Long itemId = item.getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        ItemViewRecord record = itemViewRepository.findForUpdate(itemId)
+                .orElseGet(() -> ItemViewRecord.builder().itemId(itemId).build());
+        fill(record, item, now);
+        if (record.getVersion() == null) {
+            record.setVersion(0L);
+            entityManager.persist(record);
+        } else {
+            record.setVersion(record.getVersion() + 1);
+        }
+        return record;
+    }
+
+    /**
+     * Строки для только что созданных вещей: у новой вещи нет бронирований и отзывов, поэтому строка
+     * собирается без запросов к ним, а persist позволяет Hibernate вставить все строки одним пакетом
+     */
+    @Transactional
+    public void createForNewItems(Collection<Item> items) {
+        for (Item item : items) {
+            ItemViewRecord record = ItemViewRecord.builder()
+                    .itemId(item.getId())
+                    .commentCount(0)
+                    .latestComments(writeComments(Collections.emptyList()))
+                    .version(0L)
+                    .build();
+            ItemViewMapper.setItem(record, item);
+            entityManager.persist(record);
+        }
+    }
+
+    /**
+     * Пересчитывает строки со сдвинувшимися бронированиями и создаёт недостающие
+     */
+    @Transactional
+    public int refreshStale() {
+        Pageable batch = PageRequest.of(0, catchUpBatch);
+        List<Long> itemIds = new ArrayList<>(itemViewRepository.findStaleItemIds(LocalDateTime.now(), batch));
+        itemIds.addAll(itemViewRepository.findItemIdsWithoutView(batch));
+        itemIds.forEach(this::refresh);
+        return itemIds.size();
+    }
+
+    /**
+     * Отзывы из строки представления, если в ней хранятся все отзывы вещи, иначе null
+     */
+    public List<CommentDto> getAllComments(ItemViewRecord record) {
+        if (record.getCommentCount() > latestComments) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(record.getLatestComments(), COMMENT_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Broken comments of item view " + record.getItemId(), e);
+        }
+    }
+
+    private void fill(ItemViewRecord record, Item item, LocalDateTime now) {
+        ItemViewMapper.setItem(record, item);
+        setBookings(record, now);
+
+        List<Comment> latest = new ArrayList<>(commentRepository.findAllByItemId(item.getId(),
+                PageRequest.of(0, latestComments, Sort.by(Sort.Direction.DESC, "created"))));
+        Collections.reverse(latest);
+        record.setCommentCount((int) commentRepository.countByItemId(item.getId()));
+        record.setLatestComments(writeComments(toCommentDtoList(latest)));
+    }
+
+    /**
+     * Отсоединённая копия не попадёт в базу при сбросе контекста; версия остаётся прежней,
+     * так как вещь и отзывы не менялись
+     */
+    private ItemViewRecord withCurrentBookings(ItemViewRecord record, LocalDateTime now) {
+        entityManager.detach(record);
+        setBookings(record, now);
+        return record;
+    }
+
+    private void setBookings(ItemViewRecord record, LocalDateTime now) {
+        Long itemId = record.getItemId();
+        ItemViewMapper.setLastBooking(record, bookingRepository
+                .findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(itemId, Status.APPROVED, now)
+                .orElse(null));
+        ItemViewMapper.setNextBooking(record, bookingRepository
+                .findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(itemId, Status.APPROVED, now)
+                .orElse(null));
+    }
+
+    private String writeComments(List<CommentDto> comments) {
+        try {
+            return objectMapper.writeValueAsString(comments);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize comments", e);
+        }
+    }
+
+    private static boolean isStale(ItemViewRecord record, LocalDateTime now) {
+        return record.getNextStart() != null && !record.getNextStart().isAfter(now);
+    }
+}
@@ -5,7 +5,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.request.dto.ItemRequestCursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
 import ru.practicum.shareit.request.dto.RequestDtoResponseWithItem;
@@ -13,6 +16,7 @@ import ru.practicum.shareit.request.service.ItemRequestService;
 
 import java.util.List;
 
+import static ru.practicum.shareit.utilitary.Constants.HEADER_NEXT_CURSOR;
 import static ru.practicum.shareit.utilitary.Constants.HEADER_USER_ID;
 
 @Slf4j
@@ -40,21 +44,41 @@ public class ItemRequestController {
                 .withSort(Sort.by("created").descending()), requesterId);
     }
 
+    /**
+     * При наличии параметра cursor (пустой - первая страница) лента читается по индексу (created, id)
+     * без смещения, курсор следующей страницы возвращается в заголовке X-Next-Cursor
+     */
     @GetMapping("all")
-    public List<RequestDtoResponseWithItem> getOtherRequests(
+    public ResponseEntity<List<RequestDtoResponseWithItem>> getOtherRequests(
             @RequestHeader(HEADER_USER_ID) Long requesterId,
             @RequestParam(value = "from", defaultValue = "0") Integer from,
-            @RequestParam(value = "size", defaultValue = "10") Integer size) {
+            @RequestParam(value = "size", defaultValue = "10") Integer size,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         log.info("GET: request to the endpoint was received: '/requests' get other requests");
-        return itemRequestService.getOtherRequests(PageRequest.of(
-                from / size, size, Sort.by(Sort.Direction.DESC, "created")), requesterId);
+        if (cursor != null) {
+            return toCursorResponse(itemRequestService.getOtherRequestsPage(cursor, size, requesterId));
+        }
+        return ResponseEntity.ok(itemRequestService.getOtherRequests(PageRequest.of(
+                from / size, size, Sort.by(Sort.Direction.DESC, "created")), requesterId));
     }
 
     @GetMapping("{requestId}")
     public RequestDtoResponseWithItem getItemRequest(
             @RequestHeader(HEADER_USER_ID) Long userId,
-            @PathVariable Long requestId) {
+            @PathVariable Long requestId,
+            WebRequest request) {
         log.info("GET: request to the endpoint was received: '/requests' get item requests by id");
+        if (request.checkNotModified(itemRequestService.getItemRequestETag(userId, requestId))) {
+            return null;
+        }
         return itemRequestService.getItemRequest(userId, requestId);
     }
+
+    private ResponseEntity<List<RequestDtoResponseWithItem>> toCursorResponse(ItemRequestCursorPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(HEADER_NEXT_CURSOR, page.getNextCursor());
+        }
+        return response.body(page.getRequests());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ItemRequestCursorPage {
+    private List<RequestDtoResponseWithItem> requests;
+    private String nextCursor;
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -15,4 +16,9 @@ public class RequestDtoResponseWithItem {
     private String description;
     private LocalDateTime created;
     private List<ItemDataForRequestDto> items;
+    /**
+     * Подходящие по описанию вещи без явной ссылки на запрос, заполняются только для автора запроса
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ItemDataForRequestDto> matchedItems;
 }
\ No newline at end of file
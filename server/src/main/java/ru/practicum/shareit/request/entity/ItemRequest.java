@@ -18,7 +18,8 @@ import java.util.Set;
 public class ItemRequest {
     @Id
     @EqualsAndHashCode.Include
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "requests_seq")
+    @SequenceGenerator(name = "requests_seq", sequenceName = "requests_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
     @Column(nullable = false, length = 2000)
@@ -30,4 +31,6 @@ public class ItemRequest {
     private LocalDateTime created;
     @OneToMany(mappedBy = "request", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     private Set<Item> items;
+    @Version
+    private Long version;
 }
@@ -9,8 +9,6 @@ import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
 import ru.practicum.shareit.request.dto.RequestDtoResponseWithItem;
 import ru.practicum.shareit.request.entity.ItemRequest;
 
-import java.util.List;
-
 @Mapper
 public interface ItemRequestMapper {
     ItemRequest mapToItemRequest(ItemRequestDto itemRequestDto);
@@ -20,7 +18,7 @@ public interface ItemRequestMapper {
     @Mapping(source = "request.id", target = "requestId")
     ItemDataForRequestDto mapToItemDataForRequestDto(Item item);
 
-    RequestDtoResponseWithItem mapToRequestDtoResponseWithItem(ItemRequest itemRequest);
-
-    List<RequestDtoResponseWithItem> mapToRequestDtoResponseWithItem(List<ItemRequest> itemRequests);
+    @Mapping(target = "items", ignore = true)
+    @Mapping(target = "matchedItems", ignore = true)
+    RequestDtoResponseWithItem mapToRequestDtoResponseWithoutItems(ItemRequest itemRequest);
 }
\ No newline at end of file
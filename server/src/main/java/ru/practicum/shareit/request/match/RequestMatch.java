@@ -0,0 +1,33 @@
+package ru.practicum.shareit.request.match;
+
+import lombok.*;
+import ru.practicum.shareit.item.entity.Item;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Совпадение вещи с открытым запросом по словам описания, найденное без явной ссылки requestId
+ */
+@Setter
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Entity
+@Table(name = "request_matches")
+public class RequestMatch {
+    @Id
+    @EqualsAndHashCode.Include
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "request_matches_seq")
+    @SequenceGenerator(name = "request_matches_seq", sequenceName = "request_matches_seq", allocationSize = 50)
+    private Long id;
+    @Column(name = "request_id")
+    private Long requestId;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+    private Integer score;
+    private LocalDateTime created;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.request.match;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.utilitary.EntityVersion;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface RequestMatchRepository extends JpaRepository<RequestMatch, Long> {
+    @EntityGraph(attributePaths = "item")
+    List<RequestMatch> findAllByRequestIdInOrderByItemId(Collection<Long> requestIds);
+
+    @Query("select m.item.id as id, m.item.version as version from RequestMatch m " +
+            "where m.requestId = ?1 order by m.item.id")
+    List<EntityVersion> findItemVersionsByRequestId(Long requestId);
+
+    @Modifying
+    @Query("delete from RequestMatch m where m.item.id = ?1")
+    int deleteAllByItemId(Long itemId);
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.request.match;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.item.entity.Item;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Сохраняет совпадения вещей с запросами при создании и изменении вещей.
+ * Недоступные вещи не сопоставляются, их прежние совпадения удаляются
+ */
+@Service
+@RequiredArgsConstructor
+public class RequestMatchService {
+    private final RequestTermIndex requestTermIndex;
+    private final RequestMatchRepository requestMatchRepository;
+
+    @Transactional
+    public void onItemsCreated(Collection<Item> items) {
+        List<RequestMatch> matches = new ArrayList<>();
+        items.forEach(item -> matches.addAll(toMatches(item)));
+        requestMatchRepository.saveAll(matches);
+    }
+
+    @Transactional
+    public void onItemUpdated(Item item) {
+        requestMatchRepository.deleteAllByItemId(item.getId());
+        requestMatchRepository.saveAll(toMatches(item));
+    }
+
+    @Transactional
+    public Map<Long, List<Item>> findMatchedItems(Collection<Long> requestIds) {
+        if (requestIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return requestMatchRepository.findAllByRequestIdInOrderByItemId(requestIds).stream()
+                .collect(Collectors.groupingBy(RequestMatch::getRequestId,
+                        Collectors.mapping(RequestMatch::getItem, Collectors.toList())));
+    }
+
+    private List<RequestMatch> toMatches(Item item) {
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            return Collections.emptyList();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return requestTermIndex.findMatches(item).entrySet().stream()
+                .map(match -> RequestMatch.builder()
+                        .requestId(match.getKey())
+                        .item(item)
+                        .score(match.getValue())
+                        .created(now)
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,182 @@
+package ru.practicum.shareit.request.match;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.request.entity.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.ItemRequestTermView;
+import ru.practicum.shareit.utilitary.LongKeyMap;
+import ru.practicum.shareit.utilitary.LongPostingList;
+import ru.practicum.shareit.utilitary.TransactionHooks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс слов описаний открытых запросов.
+ * Вещь проверяется только по спискам запросов, содержащих её слова, поэтому стоимость проверки
+ * пропорциональна числу кандидатов, а не числу запросов. Списки хранят id запросов отсортированными
+ * массивами long, без упаковки в Long
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestTermIndex {
+    private final ItemRequestRepository itemRequestRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${shareit.request.match.index-batch}")
+    private int indexBatch;
+    @Value("${shareit.request.match.min-term-length}")
+    private int minTermLength;
+    @Value("${shareit.request.match.min-shared-terms}")
+    private int minSharedTerms;
+
+    private final Map<String, LongPostingList> postings = new HashMap<>();
+    private final LongKeyMap<IndexedRequest> requests = new LongKeyMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Запросы читаются проекцией (id, автор, описание) страницами по id в одной транзакции только для чтения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Map<Long, IndexedRequest> loaded = readOnly.execute(status -> load());
+        lock.writeLock().lock();
+        try {
+            loaded.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Request term index is built: {} requests, {} terms", requests.size(), postings.size());
+    }
+
+    private Map<Long, IndexedRequest> load() {
+        Map<Long, IndexedRequest> loaded = new HashMap<>();
+        Pageable batch = PageRequest.of(0, indexBatch);
+        List<ItemRequestTermView> page = itemRequestRepository.findTermViewsAfter(0L, batch);
+        while (!page.isEmpty()) {
+            page.forEach(request -> loaded.put(request.getId(),
+                    new IndexedRequest(request.getRequesterId(), terms(request.getDescription()))));
+            page = page.size() < indexBatch
+                    ? List.of()
+                    : itemRequestRepository.findTermViewsAfter(page.get(page.size() - 1).getId(), batch);
+        }
+        return loaded;
+    }
+
+    public void onRequestCreated(ItemRequest request) {
+        Long requestId = request.getId();
+        IndexedRequest indexed = new IndexedRequest(request.getRequester().getId(), terms(request.getDescription()));
+
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                add(requestId, indexed);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Запросы, с описанием которых у вещи не меньше minSharedTerms общих слов (или все слова короткого запроса),
+     * с числом общих слов. Запросы владельца вещи и запрос, на который вещь уже ссылается, пропускаются.
+     * Списки слов вещи сливаются в один массив и сортируются: число повторов id - число общих слов
+     */
+    public Map<Long, Integer> findMatches(Item item) {
+        Set<String> itemTerms = terms(item.getName() + " " + item.getDescription());
+        long ownerId = item.getUser().getId();
+        long linkedRequestId = item.getRequest() == null ? 0 : item.getRequest().getId();
+
+        Map<Long, Integer> shared = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            long[] candidates = candidates(itemTerms);
+            for (int start = 0, end; start < candidates.length; start = end) {
+                long requestId = candidates[start];
+                end = start + 1;
+                while (end < candidates.length && candidates[end] == requestId) {
+                    end++;
+                }
+                IndexedRequest request = requests.get(requestId);
+                if (requestId != linkedRequestId && request.requesterId != ownerId
+                        && end - start >= Math.min(minSharedTerms, request.termCount)) {
+                    shared.put(requestId, end - start);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return shared;
+    }
+
+    private long[] candidates(Set<String> itemTerms) {
+        List<LongPostingList> lists = new ArrayList<>();
+        int total = 0;
+        for (String term : itemTerms) {
+            LongPostingList list = postings.get(term);
+            if (list != null) {
+                lists.add(list);
+                total += list.size();
+            }
+        }
+        long[] candidates = new long[total];
+        int position = 0;
+        for (LongPostingList list : lists) {
+            long[] ids = list.toArray();
+            System.arraycopy(ids, 0, candidates, position, ids.length);
+            position += ids.length;
+        }
+        Arrays.sort(candidates);
+        return candidates;
+    }
+
+    private void add(long requestId, IndexedRequest request) {
+        requests.put(requestId, request);
+        for (String term : request.terms) {
+            postings.computeIfAbsent(term, key -> new LongPostingList()).add(requestId);
+        }
+    }
+
+    private Set<String> terms(String text) {
+        if (text == null) {
+            return Collections.emptySet();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> term.length() >= minTermLength)
+                .collect(Collectors.toSet());
+    }
+
+    private static class IndexedRequest {
+        private final long requesterId;
+        private final Set<String> terms;
+        private final int termCount;
+
+        private IndexedRequest(long requesterId, Set<String> terms) {
+            this.requesterId = requesterId;
+            this.terms = terms;
+            this.termCount = terms.size();
+        }
+    }
+}
@@ -2,12 +2,28 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.entity.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest,Long> {
     List<ItemRequest> findAllByRequesterId(Pageable pageable, Long requesterId);
 
     List<ItemRequest> findAllByRequesterIdNot(Pageable pageable, Long requesterId);
+
+    @Query("select r from ItemRequest r " +
+            "where r.requester.id <> ?1 " +
+            "and (r.created < ?2 or (r.created = ?2 and r.id < ?3)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> seekAllByRequesterIdNot(Long requesterId, LocalDateTime created, Long id, Pageable pageable);
+
+    @Query("select r.id as id, r.requester.id as requesterId, r.description as description from ItemRequest r " +
+            "where r.id > ?1 order by r.id")
+    List<ItemRequestTermView> findTermViewsAfter(Long id, Pageable pageable);
+
+    @Query("select r.requester.id as requesterId, r.version as version from ItemRequest r where r.id = ?1")
+    Optional<ItemRequestVersionView> findVersionViewById(Long id);
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.request.repository;
+
+/**
+ * Проекция запроса для построения индекса слов без загрузки сущностей и их пользователей
+ */
+public interface ItemRequestTermView {
+    Long getId();
+
+    Long getRequesterId();
+
+    String getDescription();
+}
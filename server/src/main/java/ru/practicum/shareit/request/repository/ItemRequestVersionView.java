@@ -0,0 +1,10 @@
+package ru.practicum.shareit.request.repository;
+
+/**
+ * Проекция запроса для вычисления ETag без загрузки сущностей
+ */
+public interface ItemRequestVersionView {
+    Long getRequesterId();
+
+    Long getVersion();
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request.service;
 
 import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.request.dto.ItemRequestCursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
 import ru.practicum.shareit.request.dto.RequestDtoResponseWithItem;
@@ -14,5 +15,9 @@ public interface ItemRequestService {
 
     List<RequestDtoResponseWithItem> getOtherRequests(PageRequest pageRequest, Long requesterId);
 
+    ItemRequestCursorPage getOtherRequestsPage(String cursor, Integer size, Long requesterId);
+
     RequestDtoResponseWithItem getItemRequest(Long userId, Long requestId);
+
+    String getItemRequestETag(Long userId, Long requestId);
 }
\ No newline at end of file
@@ -6,25 +6,42 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemDataForRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestCursorPage;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
 import ru.practicum.shareit.request.dto.RequestDtoResponseWithItem;
 import ru.practicum.shareit.request.entity.ItemRequest;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.match.RequestMatchRepository;
+import ru.practicum.shareit.request.match.RequestMatchService;
+import ru.practicum.shareit.request.match.RequestTermIndex;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.repository.ItemRequestVersionView;
 import ru.practicum.shareit.user.entity.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utilitary.ETags;
+import ru.practicum.shareit.utilitary.SeekCursor;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
     private final ItemRequestMapper mapper;
+    private final RequestTermIndex requestTermIndex;
+    private final RequestMatchService requestMatchService;
+    private final RequestMatchRepository requestMatchRepository;
 
     @Override
     @Transactional
@@ -33,21 +50,42 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         ItemRequest newRequest = mapper.mapToItemRequest(itemRequestDto);
         newRequest.setRequester(user);
         newRequest.setCreated(LocalDateTime.now());
-        return mapper.mapToItemRequestDtoResponse(itemRequestRepository.save(newRequest));
+        itemRequestRepository.save(newRequest);
+        requestTermIndex.onRequestCreated(newRequest);
+        return mapper.mapToItemRequestDtoResponse(newRequest);
     }
 
     @Override
     @Transactional
     public List<RequestDtoResponseWithItem> getPrivateRequests(PageRequest pageRequest, Long requesterId) {
         userRepository.findById(requesterId).orElseThrow(() -> new UserNotFoundException(requesterId));
-        return mapper.mapToRequestDtoResponseWithItem(itemRequestRepository.findAllByRequesterId(pageRequest, requesterId));
+        return withMatchedItems(toResponsesWithItems(itemRequestRepository.findAllByRequesterId(pageRequest, requesterId)));
     }
 
     @Override
     @Transactional
     public List<RequestDtoResponseWithItem> getOtherRequests(PageRequest pageRequest, Long requesterId) {
         userRepository.findById(requesterId).orElseThrow(() -> new UserNotFoundException(requesterId));
-        return mapper.mapToRequestDtoResponseWithItem(itemRequestRepository.findAllByRequesterIdNot(pageRequest, requesterId));
+        return toResponsesWithItems(itemRequestRepository.findAllByRequesterIdNot(pageRequest, requesterId));
+    }
+
+    @Override
+    @Transactional
+    public ItemRequestCursorPage getOtherRequestsPage(String cursor, Integer size, Long requesterId) {
+        userRepository.findById(requesterId).orElseThrow(() -> new UserNotFoundException(requesterId));
+        SeekCursor seekCursor = SeekCursor.decode(cursor);
+        List<ItemRequest> itemRequests = itemRequestRepository.seekAllByRequesterIdNot(requesterId,
+                seekCursor.getDate(), seekCursor.getId(), PageRequest.of(0, size));
+
+        String nextCursor = null;
+        if (itemRequests.size() == size) {
+            ItemRequest last = itemRequests.get(itemRequests.size() - 1);
+            nextCursor = new SeekCursor(last.getCreated(), last.getId()).encode();
+        }
+        return ItemRequestCursorPage.builder()
+                .requests(toResponsesWithItems(itemRequests))
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Override
@@ -55,8 +93,66 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     public RequestDtoResponseWithItem getItemRequest(Long userId, Long requestId) {
         userRepository.findById(userId).orElseThrow(
                 () -> new UserNotFoundException(userId));
-        return mapper.mapToRequestDtoResponseWithItem(
-                itemRequestRepository.findById(requestId)
-                        .orElseThrow(() -> new NotFoundException(String.format("No request with id=%s", requestId))));
+        ItemRequest itemRequest = itemRequestRepository.findById(requestId)
+                .orElseThrow(() -> new NotFoundException(String.format("No request with id=%s", requestId)));
+        List<RequestDtoResponseWithItem> responses = toResponsesWithItems(List.of(itemRequest));
+        if (itemRequest.getRequester().getId().equals(userId)) {
+            withMatchedItems(responses);
+        }
+        return responses.get(0);
+    }
+
+    /**
+     * Версия запроса и свёртка версий его вещей; автору добавляется свёртка подобранных вещей
+     */
+    @Override
+    @Transactional
+    public String getItemRequestETag(Long userId, Long requestId) {
+        userRepository.findById(userId).orElseThrow(
+                () -> new UserNotFoundException(userId));
+        ItemRequestVersionView view = itemRequestRepository.findVersionViewById(requestId)
+                .orElseThrow(() -> new NotFoundException(String.format("No request with id=%s", requestId)));
+        String items = ETags.digest(itemRepository.findVersionsByRequestId(requestId));
+
+        if (view.getRequesterId().equals(userId)) {
+            return ETags.of("request", requestId, view.getVersion(), items,
+                    ETags.digest(requestMatchRepository.findItemVersionsByRequestId(requestId)));
+        }
+        return ETags.of("request", requestId, view.getVersion(), items);
+    }
+
+    private List<RequestDtoResponseWithItem> withMatchedItems(List<RequestDtoResponseWithItem> responses) {
+        List<Long> requestIds = responses.stream()
+                .map(RequestDtoResponseWithItem::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<Item>> matchedItems = requestMatchService.findMatchedItems(requestIds);
+        responses.forEach(response -> response.setMatchedItems(
+                matchedItems.getOrDefault(response.getId(), Collections.emptyList()).stream()
+                        .map(mapper::mapToItemDataForRequestDto)
+                        .collect(Collectors.toList())));
+        return responses;
+    }
+
+    /**
+     * Вещи всех запросов страницы загружаются одним запросом с IN вместо обхода ленивых коллекций
+     */
+    private List<RequestDtoResponseWithItem> toResponsesWithItems(List<ItemRequest> itemRequests) {
+        if (itemRequests.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> requestIds = itemRequests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<ItemDataForRequestDto>> itemsByRequestId = itemRepository.findAllByRequestIdIn(requestIds).stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId(),
+                        Collectors.mapping(mapper::mapToItemDataForRequestDto, Collectors.toList())));
+
+        return itemRequests.stream()
+                .map(itemRequest -> {
+                    RequestDtoResponseWithItem response = mapper.mapToRequestDtoResponseWithoutItems(itemRequest);
+                    response.setItems(itemsByRequestId.getOrDefault(itemRequest.getId(), Collections.emptyList()));
+                    return response;
+                })
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -2,8 +2,11 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.comment.repository.CommentRepository;
 import ru.practicum.shareit.exception.EmailAlreadyUsedException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.cache.ItemViewCache;
+import ru.practicum.shareit.item.view.ItemViewService;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.entity.User;
@@ -21,6 +24,9 @@ import static ru.practicum.shareit.user.dto.UserMapper.toUserDtoList;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final ItemViewCache itemViewCache;
+    private final ItemViewService itemViewService;
+    private final CommentRepository commentRepository;
 
     @Override
     @Transactional
@@ -55,8 +61,10 @@ public class UserServiceImpl implements UserService {
 
         User userToUpdate = userRepository.findById(userId).get();
 
-        if (user.getName() != null) {
+        if (user.getName() != null && !user.getName().equals(userToUpdate.getName())) {
             userToUpdate.setName(user.getName());
+            commentRepository.findItemIdsByAuthorId(userId).forEach(itemViewService::refresh);
+            itemViewCache.evictAllViews();
         }
 
         if (user.getEmail() != null) {
@@ -5,4 +5,6 @@ public class Constants {
             + "[^-][A-Za-z0-9-]+(\\.[A-Za-z0-9-]+)*(\\.[A-Za-z]{2,})";
 
     public static final String HEADER_USER_ID = "X-Sharer-User-Id";
+
+    public static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
 }
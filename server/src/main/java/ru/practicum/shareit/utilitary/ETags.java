@@ -0,0 +1,42 @@
+package ru.practicum.shareit.utilitary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Сборка значений ETag из версий сущностей, без кавычек: их добавляет WebRequest.checkNotModified
+ */
+public class ETags {
+    private static final String SEPARATOR = "-";
+
+    private ETags() {
+    }
+
+    public static String of(String resource, Object... versions) {
+        return resource + SEPARATOR + Arrays.stream(versions)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARATOR));
+    }
+
+    /**
+     * Свёртка значений полей сущности без собственной версии, например пользователя в ответе о бронировании
+     */
+    public static String checksum(Object... values) {
+        CRC32 crc = new CRC32();
+        Arrays.stream(values).forEach(value -> crc.update((value + "\u0000").getBytes(StandardCharsets.UTF_8)));
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Свёртка набора пар (id, версия): меняется при изменении, добавлении или удалении любой из сущностей
+     */
+    public static String digest(List<EntityVersion> versions) {
+        CRC32 crc = new CRC32();
+        versions.forEach(version -> crc.update((version.getId() + ":" + version.getVersion() + ";")
+                .getBytes(StandardCharsets.US_ASCII)));
+        return versions.size() + "x" + Long.toHexString(crc.getValue());
+    }
+}
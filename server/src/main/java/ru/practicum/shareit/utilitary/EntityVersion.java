@@ -0,0 +1,10 @@
+package ru.practicum.shareit.utilitary;
+
+/**
+ * Проекция идентификатора и версии сущности
+ */
+public interface EntityVersion {
+    Long getId();
+
+    Long getVersion();
+}
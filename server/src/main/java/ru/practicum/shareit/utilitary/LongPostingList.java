@@ -0,0 +1,62 @@
+package ru.practicum.shareit.utilitary;
+
+import java.util.Arrays;
+
+/**
+ * Отсортированный по возрастанию список id без упаковки в Long
+ */
+public class LongPostingList {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int size;
+
+    public void add(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertion = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+        ids[insertion] = id;
+        size++;
+    }
+
+    public void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Пересечение с отсортированным массивом кандидатов; бинарный поиск по более длинному списку
+     */
+    public long[] intersect(long[] candidates) {
+        long[] result = new long[Math.min(size, candidates.length)];
+        int count = 0;
+        for (long candidate : candidates) {
+            if (Arrays.binarySearch(ids, 0, size, candidate) >= 0) {
+                result[count++] = candidate;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -1,7 +1,9 @@
 drop table if exists users cascade;
+drop sequence if exists users_seq;
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE users (
-     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+     id BIGINT NOT NULL,
      name varchar(50) NOT NULL,
      email varchar(50) NOT NULL,
      CONSTRAINT pk_users PRIMARY KEY (ID),
@@ -10,44 +12,62 @@ CREATE TABLE users (
 
 
 drop table if exists requests cascade;
+drop sequence if exists requests_seq;
+CREATE SEQUENCE requests_seq START WITH 1 INCREMENT BY 50;
 CREATE TABLE requests (
-    id 			BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id 			BIGINT NOT NULL,
     description 		VARCHAR (2000) NOT NULL,
     requester_id 		BIGINT NOT NULL,
     created 		TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    version 		BIGINT NOT NULL DEFAULT 0,
   CONSTRAINT pk_requests PRIMARY KEY (id),
   CONSTRAINT fk_request_requester_id FOREIGN KEY (requester_id) REFERENCES users (id)
 );
+CREATE INDEX idx_requests_requester_id ON requests (requester_id, created);
+CREATE INDEX idx_requests_created ON requests (created, id);
 
 drop table if exists items cascade;
+drop sequence if exists items_seq;
+CREATE SEQUENCE items_seq START WITH 1 INCREMENT BY 50;
 CREATE TABLE items (
-     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+     id BIGINT NOT NULL,
      name varchar(50) NOT NULL,
      description varchar(200) NOT NULL,
      is_available BOOLEAN,
      user_id bigint NOT NULL,
      request_id bigint,
+     version BIGINT NOT NULL DEFAULT 0,
      CONSTRAINT pk_items PRIMARY KEY (id),
      CONSTRAINT fk_item_user_id FOREIGN KEY (user_id) REFERENCES users (id),
      CONSTRAINT fk_item_request_id FOREIGN KEY (request_id) REFERENCES requests (id)
 );
+CREATE INDEX idx_items_user_id ON items (user_id, id);
+CREATE INDEX idx_items_request_id ON items (request_id);
 
 drop table if exists bookings cascade;
+drop sequence if exists bookings_seq;
+CREATE SEQUENCE bookings_seq START WITH 1 INCREMENT BY 50;
 CREATE TABLE bookings (
-  id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  id BIGINT NOT NULL,
   start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
   end_date TIMESTAMP WITHOUT TIME ZONE,
   item_id bigint NOT NULL,
   booker_id bigint NOT NULL,
   status varchar(40) NOT NULL,
+  version BIGINT NOT NULL DEFAULT 0,
   CONSTRAINT pk_bookings PRIMARY KEY (id),
   CONSTRAINT fk_booking_booker_id FOREIGN KEY (booker_id) REFERENCES users (id),
   CONSTRAINT fk_booking_item_id FOREIGN KEY (item_id) REFERENCES items (id)
 );
+CREATE INDEX idx_bookings_booker_id ON bookings (booker_id, start_date, id);
+CREATE INDEX idx_bookings_booker_id_status ON bookings (booker_id, status, start_date);
+CREATE INDEX idx_bookings_item_id_status ON bookings (item_id, status, start_date);
 
 drop table if exists comments cascade;
+drop sequence if exists comments_seq;
+CREATE SEQUENCE comments_seq START WITH 1 INCREMENT BY 50;
 CREATE TABLE comments (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id BIGINT NOT NULL,
     text varchar(200) NOT NULL,
     created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     item_id bigint NOT NULL,
@@ -56,3 +76,46 @@ CREATE TABLE comments (
     CONSTRAINT fk_comment_item_id FOREIGN KEY (item_id) REFERENCES items (id),
     CONSTRAINT fk_comment_author_id FOREIGN KEY (author_id) REFERENCES users (id)
 );
+CREATE INDEX idx_comments_item_id ON comments (item_id, created);
+CREATE INDEX idx_comments_author_id ON comments (author_id);
+
+drop table if exists item_view cascade;
+CREATE TABLE item_view (
+    item_id bigint NOT NULL,
+    owner_id bigint NOT NULL,
+    name varchar(50) NOT NULL,
+    description varchar(200) NOT NULL,
+    is_available BOOLEAN,
+    request_id bigint,
+    last_booking_id bigint,
+    last_booker_id bigint,
+    last_start_date TIMESTAMP WITHOUT TIME ZONE,
+    last_end_date TIMESTAMP WITHOUT TIME ZONE,
+    next_booking_id bigint,
+    next_booker_id bigint,
+    next_start_date TIMESTAMP WITHOUT TIME ZONE,
+    next_end_date TIMESTAMP WITHOUT TIME ZONE,
+    comment_count INTEGER NOT NULL,
+    latest_comments varchar(10000) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT pk_item_view PRIMARY KEY (item_id),
+    CONSTRAINT fk_item_view_item_id FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+CREATE INDEX idx_item_view_owner_id ON item_view (owner_id, item_id);
+CREATE INDEX idx_item_view_next_start_date ON item_view (next_start_date);
+
+drop sequence if exists request_matches_seq;
+CREATE SEQUENCE request_matches_seq START WITH 1 INCREMENT BY 50;
+drop table if exists request_matches cascade;
+CREATE TABLE request_matches (
+    id bigint NOT NULL,
+    request_id bigint NOT NULL,
+    item_id bigint NOT NULL,
+    score INTEGER NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_request_matches PRIMARY KEY (id),
+    CONSTRAINT uq_request_matches UNIQUE (request_id, item_id),
+    CONSTRAINT fk_request_matches_request_id FOREIGN KEY (request_id) REFERENCES requests (id) ON DELETE CASCADE,
+    CONSTRAINT fk_request_matches_item_id FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE
+);
+CREATE INDEX idx_request_matches_item_id ON request_matches (item_id);
@@ -0,0 +1,66 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.entity.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Пулы последовательностей и hibernate.jdbc.batch_size: сотня вставок укладывается в несколько операторов
+ * вместо сотни отдельных INSERT и обращений к последовательности
+ */
+@SpringBootTest
+class BatchInsertStatementCountTest {
+    private static final int ROWS = 100;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void usersAreInsertedInBatches() {
+        long nanos = System.nanoTime();
+        List<User> users = IntStream.range(0, ROWS)
+                .mapToObj(i -> User.builder().name("batch" + i).email("batch" + i + "-" + nanos + "@test.ru").build())
+                .collect(Collectors.toList());
+
+        int statements = countInTransaction(() -> userRepository.saveAll(users));
+
+        assertThat(users).allMatch(user -> user.getId() != null);
+        // не больше трёх выборок из последовательности по 50 id и по одному INSERT на пакет из 50 строк
+        assertThat(statements).isBetween(2, 6);
+    }
+
+    @Test
+    void itemsAreInsertedInBatches() {
+        User owner = userRepository.save(User.builder().name("owner").email("owner-" + System.nanoTime() + "@test.ru").build());
+        List<Item> items = IntStream.range(0, ROWS)
+                .mapToObj(i -> Item.builder().name("item" + i).description("batch").available(true).user(owner).build())
+                .collect(Collectors.toList());
+
+        int statements = countInTransaction(() -> itemRepository.saveAll(items));
+
+        assertThat(itemRepository.findAllById(items.stream().map(Item::getId).collect(Collectors.toList()))).hasSize(ROWS);
+        assertThat(statements).isBetween(2, 6);
+    }
+
+    private int countInTransaction(Runnable action) {
+        SqlStatementCounter.reset();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+        return SqlStatementCounter.count();
+    }
+}
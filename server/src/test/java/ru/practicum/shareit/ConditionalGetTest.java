@@ -0,0 +1,220 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.view.ItemViewRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.utilitary.Constants.HEADER_USER_ID;
+
+/**
+ * Условные GET вещи, бронирования и запроса: совпавший ETag даёт 304 без тела,
+ * любое изменение, видимое в ответе, даёт новый ETag
+ */
+@SpringBootTest
+class ConditionalGetTest {
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ItemViewRepository itemViewRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @Test
+    void itemETagChangesAfterUpdate() throws Exception {
+        Long ownerId = testData.user();
+        Long itemId = testData.item(ownerId);
+        String path = "/items/" + itemId;
+
+        String etag = fetch(path, ownerId);
+        assertNotModified(path, ownerId, etag);
+
+        itemService.update(ItemDto.builder().name("Renamed").build(), itemId, ownerId);
+
+        String updated = refetch(path, ownerId, etag);
+        mvc.perform(get(path).header(HEADER_USER_ID, ownerId))
+                .andExpect(jsonPath("$.name").value("Renamed"));
+        assertNotModified(path, ownerId, updated);
+    }
+
+    /**
+     * У пользователя нет версии, поэтому имя бронирующего входит в ETag бронирования свёрткой полей
+     */
+    @Test
+    void bookingETagChangesAfterApprovalAndBookerRename() throws Exception {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        Long itemId = testData.item(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Long bookingId = testData.booking(itemId, bookerId, start, start.plusHours(1), Status.WAITING);
+        String path = "/bookings/" + bookingId;
+
+        String etag = fetch(path, bookerId);
+        assertNotModified(path, bookerId, etag);
+
+        bookingService.confirmationBooking(ownerId, bookingId, true);
+        String approved = refetch(path, bookerId, etag);
+
+        userService.update(bookerId, UserDto.builder().name("Renamed booker").build());
+        String renamed = refetch(path, bookerId, approved);
+        mvc.perform(get(path).header(HEADER_USER_ID, bookerId))
+                .andExpect(jsonPath("$.status").value("APPROVED"))
+                .andExpect(jsonPath("$.booker.name").value("Renamed booker"));
+        assertNotModified(path, bookerId, renamed);
+    }
+
+    @Test
+    void requestETagChangesWhenItemIsLinked() throws Exception {
+        Long requesterId = testData.user();
+        Long ownerId = testData.user();
+        Long requestId = testData.request(requesterId, LocalDateTime.now());
+        String path = "/requests/" + requestId;
+
+        String etag = fetch(path, requesterId);
+        assertNotModified(path, requesterId, etag);
+
+        Long itemId = testData.itemForRequest(ownerId, requestId);
+        String linked = refetch(path, requesterId, etag);
+        mvc.perform(get(path).header(HEADER_USER_ID, requesterId))
+                .andExpect(jsonPath("$.items[0].id").value(itemId));
+        assertNotModified(path, requesterId, linked);
+    }
+
+    /**
+     * PATCH прочитал вещь и ждёт блокировку строки представления, пока другая транзакция меняет и коммитит
+     * ту же вещь: UPDATE по прочитанной версии не находит строку, и клиент получает 409
+     */
+    @Test
+    void updateOfConcurrentlyModifiedItemReturnsConflict() throws Exception {
+        Long ownerId = testData.user();
+        Long itemId = testData.item(ownerId);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch viewLocked = new CountDownLatch(1);
+        CountDownLatch releaseView = new CountDownLatch(1);
+        Future<?> viewLock = executor.submit(() -> transaction.executeWithoutResult(status -> {
+            itemViewRepository.findForUpdate(itemId).orElseThrow();
+            viewLocked.countDown();
+            try {
+                releaseView.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertThat(viewLocked.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<MvcResult> update = executor.submit(() -> mvc.perform(patch("/items/" + itemId)
+                            .header(HEADER_USER_ID, ownerId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"name\":\"Renamed\"}"))
+                    .andReturn());
+            awaitBlockedSession();
+
+            transaction.executeWithoutResult(status -> itemRepository.findById(itemId).orElseThrow()
+                    .setDescription("Changed concurrently"));
+            releaseView.countDown();
+
+            MvcResult result = update.get(10, TimeUnit.SECONDS);
+            assertThat(result.getResponse().getStatus()).isEqualTo(409);
+            assertThat(result.getResponse().getContentAsString())
+                    .contains("Object was modified concurrently, retry the request");
+        } finally {
+            releaseView.countDown();
+            viewLock.get(10, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+
+        Item item = itemRepository.findById(itemId).orElseThrow();
+        assertThat(item.getDescription()).isEqualTo("Changed concurrently");
+        assertThat(item.getName()).isNotEqualTo("Renamed");
+    }
+
+    private void awaitBlockedSession() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.sessions where blocker_id is not null", Integer.class) == 0) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    private String fetch(String path, Long userId) throws Exception {
+        MvcResult result = mvc.perform(get(path).header(HEADER_USER_ID, userId))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+
+    /**
+     * Прежний ETag больше не совпадает: полный ответ с новым ETag
+     */
+    private String refetch(String path, Long userId, String staleETag) throws Exception {
+        MvcResult result = mvc.perform(get(path).header(HEADER_USER_ID, userId)
+                        .header(HttpHeaders.IF_NONE_MATCH, staleETag))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank().isNotEqualTo(staleETag);
+        assertThat(result.getResponse().getContentAsString()).isNotEmpty();
+        return etag;
+    }
+
+    private void assertNotModified(String path, Long userId, String etag) throws Exception {
+        mvc.perform(get(path).header(HEADER_USER_ID, userId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Горячие запросы репозиториев идут по индексу, а не полным просмотром таблицы. План строит H2,
+ * который сам индексирует внешние ключи, поэтому тест ловит запрос без подходящего индекса,
+ * но не выбор планировщика PostgreSQL
+ */
+@SpringBootTest
+class QueryPlanIndexTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "SELECT * FROM bookings WHERE booker_id = 1 ORDER BY start_date DESC, id DESC",
+            "SELECT * FROM bookings WHERE booker_id = 1 AND status = 'WAITING' ORDER BY start_date DESC",
+            "SELECT * FROM bookings WHERE item_id = 1 AND status = 'APPROVED' AND start_date > NOW()",
+            "SELECT * FROM items WHERE user_id = 1 ORDER BY id",
+            "SELECT * FROM items WHERE request_id = 1",
+            "SELECT * FROM comments WHERE item_id = 1 ORDER BY created DESC",
+            "SELECT * FROM comments WHERE author_id = 1",
+            "SELECT * FROM requests WHERE requester_id = 1 ORDER BY created DESC",
+            "SELECT * FROM item_view WHERE owner_id = 1 ORDER BY item_id"
+    })
+    void hotQueryUsesIndex(String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+
+        assertThat(plan).doesNotContain("tableScan");
+    }
+}
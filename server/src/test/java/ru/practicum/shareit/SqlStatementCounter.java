@@ -0,0 +1,35 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает SQL-операторы, подготовленные Hibernate в текущем потоке.
+ * Счётчик на поток не учитывает фоновые задачи и параллельные тесты
+ */
+public class SqlStatementCounter implements StatementInspector {
+    private static final ThreadLocal<Integer> COUNT = ThreadLocal.withInitial(() -> 0);
+    private static final ThreadLocal<Integer> MAX_LENGTH = ThreadLocal.withInitial(() -> 0);
+
+    public static void reset() {
+        COUNT.set(0);
+        MAX_LENGTH.set(0);
+    }
+
+    public static int count() {
+        return COUNT.get();
+    }
+
+    /**
+     * Длина самого длинного оператора с последнего reset
+     */
+    public static int maxLength() {
+        return MAX_LENGTH.get();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.set(COUNT.get() + 1);
+        MAX_LENGTH.set(Math.max(MAX_LENGTH.get(), sql.length()));
+        return sql;
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.entity.Booking;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.entity.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.entity.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Наполнение общей для всех тестов базы: каждый тест создаёт своих пользователей и вещи
+ */
+@Component
+@RequiredArgsConstructor
+public class TestData {
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final int CHUNK = 1000;
+
+    private final UserService userService;
+    private final ItemService itemService;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final ItemRequestRepository itemRequestRepository;
+
+    public Long user() {
+        long n = SEQUENCE.incrementAndGet();
+        return userService.create(UserDto.builder()
+                .name("user" + n)
+                .email("user" + n + "-" + System.nanoTime() + "@test.ru")
+                .build()).getId();
+    }
+
+    public Long item(Long ownerId) {
+        return item(ownerId, "Item " + SEQUENCE.incrementAndGet(), "Test item");
+    }
+
+    public Long item(Long ownerId, String name, String description) {
+        return itemService.create(ItemDto.builder()
+                .name(name)
+                .description(description)
+                .available(true)
+                .build(), ownerId).getId();
+    }
+
+    /**
+     * Много вещей в обход сервиса, пачками по CHUNK в отдельных транзакциях: без строк item_view и индексов поиска
+     */
+    public List<Long> items(Long ownerId, int count) {
+        User owner = userRepository.findById(ownerId).orElseThrow();
+        List<Long> ids = new ArrayList<>(count);
+        for (int from = 0; from < count; from += CHUNK) {
+            List<Item> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(from + CHUNK, count); i++) {
+                chunk.add(Item.builder()
+                        .name("Bulk item " + SEQUENCE.incrementAndGet())
+                        .description("Bulk")
+                        .available(true)
+                        .user(owner)
+                        .build());
+            }
+            itemRepository.saveAll(chunk).forEach(item -> ids.add(item.getId()));
+        }
+        return ids;
+    }
+
+    public Long itemForRequest(Long ownerId, Long requestId) {
+        return itemService.create(ItemDto.builder()
+                .name("Item " + SEQUENCE.incrementAndGet())
+                .description("Answer to request " + requestId)
+                .available(true)
+                .requestId(requestId)
+                .build(), ownerId).getId();
+    }
+
+    /**
+     * Запрос в обход сервиса, чтобы задать дату создания
+     */
+    public Long request(Long requesterId, LocalDateTime created) {
+        ItemRequest request = new ItemRequest();
+        request.setDescription("Request " + SEQUENCE.incrementAndGet());
+        request.setRequester(userRepository.findById(requesterId).orElseThrow());
+        request.setCreated(created);
+        return itemRequestRepository.save(request).getId();
+    }
+
+    /**
+     * Бронирование в обход сервиса, чтобы можно было создать его в прошлом
+     */
+    public Long booking(Long itemId, Long bookerId, LocalDateTime start, LocalDateTime end, Status status) {
+        Item item = itemRepository.findById(itemId).orElseThrow();
+        User booker = userRepository.findById(bookerId).orElseThrow();
+        return bookingRepository.save(Booking.builder()
+                .item(item)
+                .booker(booker)
+                .start(start)
+                .end(end)
+                .status(status)
+                .build()).getId();
+    }
+
+    /**
+     * count часовых бронирований подряд начиная с firstStart, по очереди на каждую из вещей
+     */
+    public void bookings(List<Long> itemIds, Long bookerId, LocalDateTime firstStart, int count, Status status) {
+        List<Item> items = itemRepository.findAllById(itemIds);
+        User booker = userRepository.findById(bookerId).orElseThrow();
+        for (int from = 0; from < count; from += CHUNK) {
+            List<Booking> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(from + CHUNK, count); i++) {
+                LocalDateTime start = firstStart.plusHours(i);
+                chunk.add(Booking.builder()
+                        .item(items.get(i % items.size()))
+                        .booker(booker)
+                        .start(start)
+                        .end(start.plusHours(1))
+                        .status(status)
+                        .build());
+            }
+            bookingRepository.saveAll(chunk);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Каждый элемент пакета проверяется по правилам одиночного бронирования, ошибка одного не мешает остальным
+ */
+@SpringBootTest
+class BookingBatchTest {
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void failedElementsAreReportedAndOthersSaved() {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        Long itemId = testData.item(ownerId);
+        Long otherItemId = testData.item(ownerId);
+        Long ownItemId = testData.item(bookerId);
+        Long hiddenItemId = testData.item(ownerId);
+        itemService.update(ItemDto.builder().available(false).build(), hiddenItemId, ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        testData.booking(otherItemId, testData.user(), start, start.plusHours(2), Status.APPROVED);
+
+        List<BookingBatchResultDto> results = bookingService.addBookings(List.of(
+                booking(itemId, start, start.plusHours(1)),
+                booking(itemId, start.plusMinutes(30), start.plusHours(2)),
+                booking(itemId, start.plusHours(1), start.plusHours(2)),
+                booking(otherItemId, start.plusHours(1), start.plusHours(3)),
+                booking(ownItemId, start, start.plusHours(1)),
+                booking(hiddenItemId, start, start.plusHours(1)),
+                booking(Long.MAX_VALUE, start, start.plusHours(1))), bookerId);
+
+        assertThat(results).extracting(BookingBatchResultDto::getIndex).containsExactly(0, 1, 2, 3, 4, 5, 6);
+        assertThat(results.get(0).getBooking()).isNotNull();
+        assertThat(results.get(0).getError()).isNull();
+        assertThat(results.get(1).getError()).contains("twice in the batch");
+        assertThat(results.get(2).getBooking()).isNotNull();
+        for (BookingBatchResultDto failed : results.subList(3, 7)) {
+            assertThat(failed.getBooking()).as("element %d", failed.getIndex()).isNull();
+            assertThat(failed.getError()).as("element %d", failed.getIndex()).isNotBlank();
+        }
+
+        Long createdId = results.get(0).getBooking().getId();
+        assertThat(bookingRepository.findById(createdId).orElseThrow().getStatus()).isEqualTo(Status.WAITING);
+        assertThat(bookingRepository.findById(results.get(2).getBooking().getId())).isPresent();
+    }
+
+    @Test
+    void batchReservesIntervalsForLaterBookings() {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        Long itemId = testData.item(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusDays(20).truncatedTo(ChronoUnit.SECONDS);
+
+        bookingService.addBookings(List.of(booking(itemId, start, start.plusHours(1))), bookerId);
+        List<BookingBatchResultDto> second = bookingService.addBookings(
+                List.of(booking(itemId, start.plusMinutes(10), start.plusMinutes(20))), bookerId);
+
+        assertThat(second.get(0).getBooking()).isNull();
+        assertThat(second.get(0).getError()).contains("already booked");
+    }
+
+    private static BookingDto booking(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return BookingDto.builder().itemId(itemId).start(start).end(end).build();
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingCountsDto;
+import ru.practicum.shareit.booking.entity.State;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.utilitary.Constants.HEADER_USER_ID;
+
+/**
+ * Счётчики, посчитанные одним агрегирующим запросом, совпадают с размерами списков по каждому состоянию
+ */
+@SpringBootTest
+class BookingCountsTest {
+    private static final Map<State, Function<BookingCountsDto, Long>> COUNTERS = Map.of(
+            State.ALL, BookingCountsDto::getAll,
+            State.CURRENT, BookingCountsDto::getCurrent,
+            State.PAST, BookingCountsDto::getPast,
+            State.FUTURE, BookingCountsDto::getFuture,
+            State.WAITING, BookingCountsDto::getWaiting,
+            State.REJECTED, BookingCountsDto::getRejected);
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mvc;
+    private Long ownerId;
+    private Long bookerId;
+
+    @BeforeEach
+    void setUp() {
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+        ownerId = testData.user();
+        bookerId = testData.user();
+        Long otherOwnerId = testData.user();
+        LocalDateTime now = LocalDateTime.now();
+        Status[] statuses = Status.values();
+        for (int i = 0; i < 30; i++) {
+            // прошедшие, текущие и будущие бронирования во всех статусах, часть - у вещей другого владельца
+            Long itemId = testData.item(i % 5 == 0 ? otherOwnerId : ownerId);
+            LocalDateTime start = now.plusDays(i % 3 - 1).plusHours(i % 7);
+            testData.booking(itemId, bookerId, start.minusHours(12), start.plusHours(1), statuses[i % statuses.length]);
+        }
+    }
+
+    @Test
+    void bookerCountsMatchListSizes() {
+        BookingCountsDto counts = bookingService.countBookingsByBookerId(bookerId);
+
+        for (State state : State.values()) {
+            int listed = bookingService.getAllBrookingByBookerId(PageRequest.of(0, 100), bookerId, state.name()).size();
+            assertThat(COUNTERS.get(state).apply(counts)).as(state.name()).isEqualTo(listed);
+        }
+        assertThat(counts.getAll()).isEqualTo(30);
+    }
+
+    @Test
+    void ownerCountsMatchListSizes() {
+        BookingCountsDto counts = bookingService.countBookingsByOwnerId(ownerId);
+
+        for (State state : State.values()) {
+            int listed = bookingService.getAllBookingsForAllItemsByOwnerId(PageRequest.of(0, 100), ownerId, state.name())
+                    .size();
+            assertThat(COUNTERS.get(state).apply(counts)).as(state.name()).isEqualTo(listed);
+        }
+        assertThat(counts.getAll()).isEqualTo(24);
+    }
+
+    @Test
+    void countsOfUserWithoutBookingsAreZero() {
+        BookingCountsDto counts = bookingService.countBookingsByBookerId(ownerId);
+
+        assertThat(COUNTERS.values()).allSatisfy(counter -> assertThat(counter.apply(counts)).isZero());
+    }
+
+    @Test
+    void countsEndpointsReturnAllCounters() throws Exception {
+        BookingCountsDto booker = bookingService.countBookingsByBookerId(bookerId);
+        mvc.perform(get("/bookings/counts").header(HEADER_USER_ID, bookerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(30))
+                .andExpect(jsonPath("$.current").value(booker.getCurrent()))
+                .andExpect(jsonPath("$.past").value(booker.getPast()))
+                .andExpect(jsonPath("$.future").value(booker.getFuture()))
+                .andExpect(jsonPath("$.waiting").value(booker.getWaiting()))
+                .andExpect(jsonPath("$.rejected").value(booker.getRejected()));
+
+        BookingCountsDto owner = bookingService.countBookingsByOwnerId(ownerId);
+        mvc.perform(get("/bookings/owner/counts").header(HEADER_USER_ID, ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all").value(24))
+                .andExpect(jsonPath("$.current").value(owner.getCurrent()))
+                .andExpect(jsonPath("$.past").value(owner.getPast()))
+                .andExpect(jsonPath("$.future").value(owner.getFuture()))
+                .andExpect(jsonPath("$.waiting").value(owner.getWaiting()))
+                .andExpect(jsonPath("$.rejected").value(owner.getRejected()));
+    }
+
+    @Test
+    void countsOfUnknownUserReturnNotFound() throws Exception {
+        mvc.perform(get("/bookings/counts").header(HEADER_USER_ID, Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/bookings/owner/counts").header(HEADER_USER_ID, Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+    }
+}
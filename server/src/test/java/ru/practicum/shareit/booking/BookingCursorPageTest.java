@@ -0,0 +1,36 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingCursorPage;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.UserNotFoundException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class BookingCursorPageTest {
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void unknownOwnerIsUserNotFound() {
+        assertThatThrownBy(() -> bookingService.getBookingsPageByOwnerId(null, 10, Long.MAX_VALUE, "ALL"))
+                .isInstanceOf(UserNotFoundException.class);
+    }
+
+    @Test
+    void ownerWithoutItemsGetsEmptyPage() {
+        Long ownerId = testData.user();
+
+        BookingCursorPage page = bookingService.getBookingsPageByOwnerId(null, 10, ownerId, "ALL");
+
+        assertThat(page.getBookings()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+    }
+}
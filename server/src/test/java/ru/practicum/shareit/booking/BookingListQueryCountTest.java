@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.SqlStatementCounter;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Число запросов к БД у списков бронирований не зависит от размера страницы
+ */
+@SpringBootTest
+class BookingListQueryCountTest {
+    private static final List<String> STATES = List.of("ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED");
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+
+    private Long ownerId;
+    private Long bookerId;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = testData.user();
+        bookerId = testData.user();
+        LocalDateTime now = LocalDateTime.now();
+        Status[] statuses = Status.values();
+        for (int i = 0; i < 24; i++) {
+            Long itemId = testData.item(ownerId);
+            LocalDateTime start = now.plusDays(i % 3 - 1).plusHours(i);
+            testData.booking(itemId, bookerId, start.minusHours(12), start.plusHours(1), statuses[i % statuses.length]);
+        }
+    }
+
+    @Test
+    void bookerListsIssueConstantNumberOfStatements() {
+        for (String state : STATES) {
+            int small = countStatements(() -> bookingService.getAllBrookingByBookerId(PageRequest.of(0, 2), bookerId, state));
+            int large = countStatements(() -> bookingService.getAllBrookingByBookerId(PageRequest.of(0, 20), bookerId, state));
+
+            assertThat(large).as(state).isEqualTo(small).isBetween(1, 2);
+        }
+    }
+
+    @Test
+    void ownerListsIssueConstantNumberOfStatements() {
+        for (String state : STATES) {
+            int small = countStatements(() -> bookingService.getAllBookingsForAllItemsByOwnerId(PageRequest.of(0, 2), ownerId, state));
+            int large = countStatements(() -> bookingService.getAllBookingsForAllItemsByOwnerId(PageRequest.of(0, 20), ownerId, state));
+
+            // проверки владельца и наличия у него вещей плюс один запрос списка
+            assertThat(large).as(state).isEqualTo(small).isBetween(1, 3);
+        }
+    }
+
+    @Test
+    void cursorPagesIssueConstantNumberOfStatements() {
+        int small = countStatements(() -> bookingService.getBookingsPageByBookerId(null, 2, bookerId, "ALL").getBookings());
+        int large = countStatements(() -> bookingService.getBookingsPageByBookerId(null, 20, bookerId, "ALL").getBookings());
+
+        assertThat(large).isEqualTo(small).isBetween(1, 2);
+    }
+
+    private int countStatements(Supplier<List<BookingOutDto>> call) {
+        SqlStatementCounter.reset();
+        List<BookingOutDto> bookings = call.get();
+        bookings.forEach(booking -> {
+            assertThat(booking.getItem().getName()).isNotNull();
+            assertThat(booking.getBooker().getName()).isNotNull();
+        });
+        return SqlStatementCounter.count();
+    }
+}
@@ -0,0 +1,178 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionOutcome;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.entity.Booking;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.index.BookingIntervalIndex;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.IncorrectBookingException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 64 потока одновременно подтверждают и отклоняют одни и те же бронирования, по одному и пакетом
+ */
+@SpringBootTest
+class BookingStatusRaceTest {
+    private static final int THREADS = 64;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Autowired
+    private TestData testData;
+
+    private Long ownerId;
+    private Long itemId;
+    private Long bookingId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void setUp() {
+        ownerId = testData.user();
+        Long bookerId = testData.user();
+        itemId = testData.item(ownerId);
+        start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        end = start.plusDays(1);
+        bookingId = bookingService.addBooking(BookingDto.builder().itemId(itemId).start(start).end(end).build(), bookerId)
+                .getId();
+    }
+
+    @Test
+    void concurrentApprovalsHaveExactlyOneWinner() throws Exception {
+        List<Boolean> outcomes = race(i -> true);
+
+        assertThat(outcomes.stream().filter(Boolean::booleanValue)).hasSize(1);
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        assertThat(booking.getStatus()).isEqualTo(Status.APPROVED);
+        assertThat(booking.getVersion()).isEqualTo(1);
+        assertThat(bookingIntervalIndex.getFreeSlots(itemId, start, end)).isEmpty();
+    }
+
+    @Test
+    void concurrentApprovalsAndRejectionsKeepReservationConsistent() throws Exception {
+        List<Boolean> outcomes = race(i -> i % 2 == 0);
+
+        long winners = outcomes.stream().filter(Boolean::booleanValue).count();
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        // каждая успешная смена статуса - ровно один compare-and-set, потерянных обновлений нет
+        assertThat(booking.getVersion()).isEqualTo(winners).isPositive();
+        if (booking.getStatus() == Status.APPROVED) {
+            assertThat(bookingIntervalIndex.getFreeSlots(itemId, start, end)).isEmpty();
+        } else {
+            assertThat(booking.getStatus()).isEqualTo(Status.REJECTED);
+            assertThat(bookingIntervalIndex.getFreeSlots(itemId, start, end)).hasSize(1);
+        }
+    }
+
+    /**
+     * Половина потоков подтверждает все бронирования пакетом, половина - по одному:
+     * каждое бронирование засчитано как подтверждённое ровно одному вызову
+     */
+    @Test
+    void batchAndSingleApprovalsReportEachBookingOnce() throws Exception {
+        Long bookerId = testData.user();
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 1; i <= 16; i++) {
+            LocalDateTime slot = end.plusDays(i);
+            bookingIds.add(bookingService.addBooking(BookingDto.builder()
+                    .itemId(itemId).start(slot).end(slot.plusHours(1)).build(), bookerId).getId());
+        }
+        List<BookingDecisionDto> decisions = bookingIds.stream()
+                .map(id -> new BookingDecisionDto(id, true))
+                .collect(Collectors.toList());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Long singleId = bookingIds.get(i / 2 % bookingIds.size());
+            boolean batch = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                if (batch) {
+                    return bookingService.decideBookings(ownerId, decisions).stream()
+                            .filter(result -> result.getOutcome() == BookingDecisionOutcome.APPROVED)
+                            .map(BookingDecisionResultDto::getBookingId)
+                            .collect(Collectors.toList());
+                }
+                try {
+                    bookingService.confirmationBooking(ownerId, singleId, true);
+                    return List.of(singleId);
+                } catch (IncorrectBookingException e) {
+                    return List.of();
+                }
+            }));
+        }
+        startSignal.countDown();
+
+        Map<Long, Integer> wins = new HashMap<>();
+        for (Future<List<Long>> future : futures) {
+            future.get(60, TimeUnit.SECONDS).forEach(id -> wins.merge(id, 1, Integer::sum));
+        }
+        executor.shutdown();
+
+        for (Long id : bookingIds) {
+            assertThat(wins.get(id)).as("booking %d", id).isEqualTo(1);
+            Booking booking = bookingRepository.findById(id).orElseThrow();
+            assertThat(booking.getStatus()).isEqualTo(Status.APPROVED);
+            assertThat(booking.getVersion()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Результат каждого потока: true, если его смена статуса прошла
+     */
+    private List<Boolean> race(IntPredicate approve) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            boolean approved = approve.test(i);
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                try {
+                    bookingService.confirmationBooking(ownerId, bookingId, approved);
+                    return true;
+                } catch (IncorrectBookingException e) {
+                    return false;
+                }
+            }));
+        }
+        startSignal.countDown();
+
+        List<Boolean> outcomes = new ArrayList<>();
+        for (Future<Boolean> future : futures) {
+            outcomes.add(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return outcomes;
+    }
+}
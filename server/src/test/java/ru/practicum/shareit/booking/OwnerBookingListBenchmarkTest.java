@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.SqlStatementCounter;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.entity.Booking;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Бронирования владельца 10 000 вещей: выборка через join по владельцу против прежнего списка id в IN
+ */
+@Slf4j
+@SpringBootTest
+class OwnerBookingListBenchmarkTest {
+    private static final int ITEMS = 10_000;
+    private static final int RUNS = 10;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private TestData testData;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void ownerJoinKeepsStatementSmallAtTenThousandItems() {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        List<Long> itemIds = testData.items(ownerId, ITEMS);
+        testData.bookings(itemIds, bookerId, LocalDateTime.now().minusYears(2).truncatedTo(ChronoUnit.HOURS),
+                ITEMS, Status.APPROVED);
+
+        List<Long> joined = bookingService.getAllBookingsForAllItemsByOwnerId(PageRequest.of(0, 20), ownerId, "ALL")
+                .stream().map(BookingOutDto::getId).collect(Collectors.toList());
+        List<Long> inList = inListPage(ownerId);
+        assertThat(joined).hasSize(20).isEqualTo(inList);
+
+        SqlStatementCounter.reset();
+        long joinNanos = median(() -> bookingService.getAllBookingsForAllItemsByOwnerId(
+                PageRequest.of(0, 20), ownerId, "ALL"));
+        int joinStatements = SqlStatementCounter.count() / RUNS;
+        int joinLength = SqlStatementCounter.maxLength();
+
+        SqlStatementCounter.reset();
+        long inListNanos = median(() -> inListPage(ownerId));
+        int inListLength = SqlStatementCounter.maxLength();
+
+        log.info("Owner with {} items, page of 20: join {} ms, {} chars; IN-list {} ms, {} chars", ITEMS,
+                TimeUnit.NANOSECONDS.toMillis(joinNanos), joinLength,
+                TimeUnit.NANOSECONDS.toMillis(inListNanos), inListLength);
+        // проверки владельца и наличия у него вещей плюс один запрос страницы
+        assertThat(joinStatements).isBetween(1, 3);
+        assertThat(joinLength).isLessThan(2_000);
+        assertThat(inListLength).isGreaterThan(ITEMS);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(joinNanos)).isLessThan(1_000);
+    }
+
+    /**
+     * Прежний способ: id всех вещей владельца, затем бронирования с этими id в IN
+     */
+    private List<Long> inListPage(Long ownerId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<Long> ids = entityManager.createQuery(
+                    "select i.id from Item i where i.user.id = ?1", Long.class)
+                    .setParameter(1, ownerId)
+                    .getResultList();
+            return entityManager.createQuery(
+                    "select b from Booking b where b.item.id in ?1 order by b.start desc, b.id desc", Booking.class)
+                    .setParameter(1, ids)
+                    .setMaxResults(20)
+                    .getResultStream()
+                    .map(Booking::getId)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private static long median(Supplier<?> call) {
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long started = System.nanoTime();
+            call.get();
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.shareit.booking.export;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.exception.ExportRejectedException;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static ru.practicum.shareit.utilitary.Constants.HEADER_USER_ID;
+
+@SpringBootTest
+class BookingExportStreamsTest {
+    @Autowired
+    private BookingExportStreams bookingExportStreams;
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private TestData testData;
+
+    @Value("${shareit.export.threads}")
+    private int threads;
+    @Value("${shareit.export.queue-capacity}")
+    private int queueCapacity;
+
+    @Test
+    void exportIsRejectedWhenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(threads);
+        try {
+            Consumer<OutputStream> blocked = out -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+            for (int i = 0; i < threads; i++) {
+                bookingExportStreams.start(blocked);
+            }
+            assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < queueCapacity; i++) {
+                bookingExportStreams.start(blocked);
+            }
+
+            assertThatThrownBy(() -> bookingExportStreams.start(out -> {
+            })).isInstanceOf(ExportRejectedException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void exportStreamsAllBookingsAsNdjson() throws Exception {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        for (int i = 0; i < 25; i++) {
+            testData.booking(testData.item(ownerId), bookerId, start.plusDays(i), start.plusDays(i).plusHours(1),
+                    Status.APPROVED);
+        }
+        MockMvc mvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        MvcResult result = mvc.perform(get("/bookings/export").header(HEADER_USER_ID, bookerId)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(result.getResponse().getContentAsString().split("\n"))
+                .hasSize(25)
+                .allSatisfy(line -> assertThat(line).startsWith("{").endsWith("}"));
+    }
+}
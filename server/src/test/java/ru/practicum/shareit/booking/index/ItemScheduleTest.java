@@ -0,0 +1,87 @@
+package ru.practicum.shareit.booking.index;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.TimeSlotDto;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemScheduleTest {
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void pruneDropsEndedIntervalsAndKeepsFutureOnes() {
+        ItemSchedule schedule = new ItemSchedule();
+        for (long i = 1; i <= 100; i++) {
+            schedule.add(i, now.minusDays(300 - i * 2), now.minusDays(299 - i * 2));
+        }
+        schedule.add(101L, now.plusDays(1), now.plusDays(2));
+        schedule.add(102L, now.minusHours(1), now.plusHours(1));
+
+        schedule.prune(now);
+
+        assertThat(schedule.size()).isEqualTo(2);
+        assertThat(schedule.isFree(now.plusDays(1), now.plusDays(2))).isFalse();
+        assertThat(schedule.isFree(now, now.plusMinutes(30))).isFalse();
+        assertThat(schedule.getFreeSlots(now.plusHours(1), now.plusDays(3))).containsExactly(
+                new TimeSlotDto(now.plusHours(1), now.plusDays(1)),
+                new TimeSlotDto(now.plusDays(2), now.plusDays(3)));
+    }
+
+    @Test
+    void tryAddPrunesHistory() {
+        ItemSchedule schedule = new ItemSchedule();
+        schedule.add(1L, now.minusDays(3), now.minusDays(2));
+        schedule.add(2L, now.minusDays(2), now.minusDays(1));
+
+        assertThat(schedule.tryAdd(3L, now.plusDays(1), now.plusDays(2))).isTrue();
+
+        assertThat(schedule.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removeAfterPruneIsNoOp() {
+        ItemSchedule schedule = new ItemSchedule();
+        schedule.add(1L, now.minusDays(3), now.minusDays(2));
+        schedule.add(2L, now.plusDays(1), now.plusDays(2));
+        schedule.prune(now);
+
+        schedule.remove(1L);
+
+        assertThat(schedule.isFree(now.plusDays(1), now.plusDays(2))).isFalse();
+    }
+
+    @Test
+    void idleCheckUsesLastAccess() {
+        ItemSchedule schedule = new ItemSchedule();
+        long before = System.currentTimeMillis() - 1;
+
+        schedule.touch();
+
+        assertThat(schedule.isIdleSince(before)).isFalse();
+        assertThat(schedule.isIdleSince(System.currentTimeMillis() + 1)).isTrue();
+    }
+
+    @Test
+    void retiredScheduleRejectsBookings() {
+        ItemSchedule schedule = new ItemSchedule();
+
+        assertThat(schedule.retireIfIdleSince(System.currentTimeMillis() + 1)).isTrue();
+
+        assertThat(schedule.tryAdd(1L, now.plusDays(1), now.plusDays(2))).isFalse();
+        assertThat(schedule.isRetired()).isTrue();
+        assertThat(schedule.size()).isZero();
+    }
+
+    @Test
+    void bookingKeepsScheduleFromRetiring() {
+        ItemSchedule schedule = new ItemSchedule();
+        long before = System.currentTimeMillis() - 1;
+
+        assertThat(schedule.tryAdd(1L, now.plusDays(1), now.plusDays(2))).isTrue();
+
+        assertThat(schedule.retireIfIdleSince(before)).isFalse();
+        assertThat(schedule.isRetired()).isFalse();
+    }
+}
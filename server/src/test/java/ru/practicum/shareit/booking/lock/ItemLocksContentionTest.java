@@ -0,0 +1,157 @@
+package ru.practicum.shareit.booking.lock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ожидание блокировки популярной вещи не должно отнимать соединения у бронирований других вещей
+ */
+@Slf4j
+@SpringBootTest
+class ItemLocksContentionTest {
+    /**
+     * Больше размера пула Hikari по умолчанию (10)
+     */
+    private static final int WAITERS = 16;
+    private static final int THREADS = 8;
+    private static final int BOOKINGS_PER_THREAD = 10;
+
+    @Autowired
+    private ItemLocks itemLocks;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void waitersOnHotItemDoNotStarveOtherItems() throws Exception {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        Long hotItemId = testData.item(ownerId);
+        Long candidateId = testData.item(ownerId);
+        while (itemLocks.stripeOf(candidateId) == itemLocks.stripeOf(hotItemId)) {
+            candidateId = testData.item(ownerId);
+        }
+        Long otherItemId = candidateId;
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WAITERS + 1);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> itemLocks.executeLocked(Collections.singletonList(hotItemId), () -> {
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        assertThat(holding.await(10, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<Long>> waiters = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            LocalDateTime slot = start.plusDays(i);
+            waiters.add(executor.submit(() -> bookingService.addBooking(BookingDto.builder()
+                    .itemId(hotItemId).start(slot).end(slot.plusHours(1)).build(), bookerId).getId()));
+        }
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        // до исправления ожидающие держали по соединению, и это бронирование ждало пул до connectionTimeout
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        Long otherBookingId = other.submit(() -> bookingService.addBooking(
+                BookingDto.builder().itemId(otherItemId).start(start).end(start.plusHours(1)).build(), bookerId).getId()
+        ).get(10, TimeUnit.SECONDS);
+        other.shutdown();
+        assertThat(otherBookingId).isNotNull();
+        assertThat(waiters).noneMatch(Future::isDone);
+
+        release.countDown();
+        holder.get(10, TimeUnit.SECONDS);
+        for (Future<Long> waiter : waiters) {
+            assertThat(waiter.get(30, TimeUnit.SECONDS)).isNotNull();
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    void hotItemSerialisesWhileDistinctItemsRunInParallel() throws Exception {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        Long hotItemId = testData.item(ownerId);
+        List<Long> distinctItemIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            distinctItemIds.add(testData.item(ownerId));
+        }
+        double contentionBefore = contention();
+
+        long hotNanos = run(thread -> hotItemId, bookerId);
+        double hotContention = contention() - contentionBefore;
+        long distinctNanos = run(distinctItemIds::get, bookerId);
+
+        log.info("{} bookings: hot item {} ms, distinct items {} ms", THREADS * BOOKINGS_PER_THREAD,
+                TimeUnit.NANOSECONDS.toMillis(hotNanos), TimeUnit.NANOSECONDS.toMillis(distinctNanos));
+        assertThat(hotContention).isPositive();
+        // грубая граница: разные вещи не должны быть заметно медленнее одной общей
+        assertThat(distinctNanos).isLessThan(hotNanos * 3);
+    }
+
+    /**
+     * Каждый поток бронирует свою вещь непересекающимися интервалами; возвращает время в наносекундах
+     */
+    private long run(IntFunction<Long> itemOfThread, Long bookerId) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.now().plusYears(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Long itemId = itemOfThread.apply(thread);
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                    LocalDateTime slot = base.plusDays((long) thread * BOOKINGS_PER_THREAD + i);
+                    bookingService.addBooking(BookingDto.builder()
+                            .itemId(itemId).start(slot).end(slot.plusHours(1)).build(), bookerId);
+                }
+                return BOOKINGS_PER_THREAD;
+            }));
+        }
+        long started = System.nanoTime();
+        startSignal.countDown();
+        int created = 0;
+        for (Future<Integer> future : futures) {
+            created += future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsed = System.nanoTime() - started;
+        executor.shutdown();
+        assertThat(created).isEqualTo(THREADS * BOOKINGS_PER_THREAD);
+        return elapsed;
+    }
+
+    private double contention() {
+        return meterRegistry.get("booking.item.lock.contention").counter().count();
+    }
+}
@@ -0,0 +1,129 @@
+package ru.practicum.shareit.booking.stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static ru.practicum.shareit.utilitary.Constants.HEADER_USER_ID;
+
+/**
+ * Поток владельца получает событие только после фиксации транзакции, изменившей бронирование;
+ * изменения откаченной транзакции в поток не попадают
+ */
+@SpringBootTest
+class BookingEventHubTest {
+    private static final long QUIET_MILLIS = 300;
+
+    @Autowired
+    private WebApplicationContext context;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Long ownerId;
+    private Long bookerId;
+    private Long itemId;
+    private MockHttpServletResponse stream;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transaction = new TransactionTemplate(transactionManager);
+        ownerId = testData.user();
+        bookerId = testData.user();
+        itemId = testData.item(ownerId);
+        MockMvc mvc = MockMvcBuilders.webAppContextSetup(context).build();
+        stream = mvc.perform(get("/bookings/owner/stream").header(HEADER_USER_ID, ownerId))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    /**
+     * Бронирование создаётся в собственной транзакции под блокировкой вещи: к приходу события оно уже
+     * зафиксировано и видно другим транзакциям
+     */
+    @Test
+    void createdBookingIsDeliveredAfterCommit() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Long bookingId = bookingService.addBooking(BookingDto.builder()
+                .itemId(itemId)
+                .start(start)
+                .end(start.plusHours(1))
+                .build(), bookerId).getId();
+
+        awaitEvent("event:CREATED", "\"bookingId\":" + bookingId);
+        assertThat(stream.getContentAsString()).contains("\"booking\":{\"id\":" + bookingId);
+        assertThat(bookingService.getBookingByIdAndBookerId(ownerId, bookingId).getStatus()).isEqualTo(Status.WAITING);
+    }
+
+    @Test
+    void rolledBackDecisionIsNotDelivered() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Long rolledBackId = testData.booking(itemId, bookerId, start, start.plusHours(1), Status.WAITING);
+        Long committedId = testData.booking(itemId, bookerId, start.plusHours(2), start.plusHours(3), Status.WAITING);
+
+        transaction.executeWithoutResult(status -> {
+            bookingService.confirmationBooking(ownerId, rolledBackId, true);
+            status.setRollbackOnly();
+        });
+        assertQuiet();
+
+        transaction.executeWithoutResult(status -> {
+            bookingService.confirmationBooking(ownerId, committedId, false);
+            assertQuiet();
+        });
+
+        awaitEvent("event:STATUS_CHANGED", "\"bookingId\":" + committedId, "\"status\":\"REJECTED\"");
+        assertThat(stream.getContentAsString()).doesNotContain("\"bookingId\":" + rolledBackId);
+    }
+
+    /**
+     * Решение владельца выполняется в транзакции вызывающего: до её фиксации поток остаётся пустым
+     */
+    private void assertQuiet() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(QUIET_MILLIS);
+            assertThat(stream.getContentAsString()).doesNotContain("event:");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void awaitEvent(String... fragments) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!containsAll(stream.getContentAsString(), fragments) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertThat(stream.getContentAsString()).contains(fragments);
+    }
+
+    private static boolean containsAll(String content, String... fragments) {
+        for (String fragment : fragments) {
+            if (!content.contains(fragment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
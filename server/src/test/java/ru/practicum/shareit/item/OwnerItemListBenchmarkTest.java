@@ -0,0 +1,105 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.SqlStatementCounter;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingCursorPage;
+import ru.practicum.shareit.booking.dto.BookingOutDto;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.view.ItemViewService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Владелец со 100 000 прошедших бронирований: список вещей читает только item_view,
+ * а страницы его бронирований по курсору идут без пропусков и повторов за постоянное число запросов
+ */
+@Slf4j
+@SpringBootTest
+class OwnerItemListBenchmarkTest {
+    private static final int ITEMS = 20;
+    private static final int HISTORY = 100_000;
+    private static final int PAGE = 50;
+    private static final int PAGES = 5;
+
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemViewService itemViewService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void ownerWithLongHistoryListsItemsAndBookingsInConstantStatements() {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            itemIds.add(testData.item(ownerId));
+        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime historyStart = now.minusHours(HISTORY + 2);
+        LocalDateTime futureStart = now.plusDays(1);
+        testData.bookings(itemIds, bookerId, historyStart, HISTORY, Status.APPROVED);
+        testData.bookings(itemIds, bookerId, futureStart, ITEMS, Status.APPROVED);
+        itemIds.forEach(itemViewService::refresh);
+
+        SqlStatementCounter.reset();
+        long started = System.nanoTime();
+        List<ItemDto> items = itemService.getItemsByOwner(ownerId, 0, ITEMS);
+        long itemsMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        int itemStatements = SqlStatementCounter.count();
+
+        assertThat(items).extracting(ItemDto::getId).containsExactlyElementsOf(itemIds);
+        for (int k = 0; k < ITEMS; k++) {
+            ItemDto item = items.get(k);
+            int lastIndex = HISTORY - ITEMS + k;
+            assertThat(item.getLastBooking().getStart()).isEqualTo(historyStart.plusHours(lastIndex));
+            assertThat(item.getNextBooking().getStart()).isEqualTo(futureStart.plusHours(k));
+        }
+        SqlStatementCounter.reset();
+        itemService.getItemsByOwner(ownerId, 0, 2);
+        // проверка владельца и один запрос к item_view
+        assertThat(itemStatements).isEqualTo(SqlStatementCounter.count()).isBetween(1, 2);
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        long slowestPage = 0;
+        for (int page = 0; page < PAGES; page++) {
+            SqlStatementCounter.reset();
+            started = System.nanoTime();
+            BookingCursorPage result = bookingService.getBookingsPageByOwnerId(cursor, PAGE, ownerId, "ALL");
+            slowestPage = Math.max(slowestPage, System.nanoTime() - started);
+            assertThat(SqlStatementCounter.count()).isBetween(1, 2);
+            assertThat(result.getBookings()).hasSize(PAGE);
+            assertThat(result.getNextCursor()).isNotNull();
+            result.getBookings().forEach(booking -> walked.add(booking.getId()));
+            cursor = result.getNextCursor();
+        }
+        List<Long> offset = bookingService.getAllBookingsForAllItemsByOwnerId(
+                        PageRequest.of(0, PAGE * PAGES), ownerId, "ALL").stream()
+                .map(BookingOutDto::getId)
+                .collect(Collectors.toList());
+
+        log.info("Owner with {} bookings: item list {} ms, slowest of {} booking pages {} ms", HISTORY + ITEMS,
+                itemsMillis, PAGES, TimeUnit.NANOSECONDS.toMillis(slowestPage));
+        assertThat(walked).doesNotHaveDuplicates().isEqualTo(offset);
+        assertThat(itemsMillis).isLessThan(1_000);
+    }
+}
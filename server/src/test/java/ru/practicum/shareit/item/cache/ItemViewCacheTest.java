@@ -0,0 +1,63 @@
+package ru.practicum.shareit.item.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.SqlStatementCounter;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.view.ItemViewService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ItemViewCacheTest {
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemViewService itemViewService;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void cachedCardCostsOneQueryAndIsDroppedOnUpdate() {
+        Long ownerId = testData.user();
+        Long otherId = testData.user();
+        Long itemId = testData.item(ownerId);
+        itemService.getItemsByOwner(itemId, otherId);
+
+        SqlStatementCounter.reset();
+        itemService.getItemsByOwner(itemId, otherId);
+        // только проверка существования пользователя
+        assertThat(SqlStatementCounter.count()).isEqualTo(1);
+
+        itemService.update(ItemDto.builder().name("Renamed").build(), itemId, ownerId);
+        assertThat(itemService.getItemsByOwner(itemId, otherId).getName()).isEqualTo("Renamed");
+    }
+
+    @Test
+    void ownerBookingsExpireWhenNextBookingStarts() throws Exception {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        Long itemId = testData.item(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusSeconds(2);
+        Long bookingId = testData.booking(itemId, bookerId, start, start.plusHours(1), Status.APPROVED);
+        itemViewService.refresh(itemId);
+
+        ItemDto before = itemService.getItemsByOwner(itemId, ownerId);
+        assertThat(before.getLastBooking()).isNull();
+        assertThat(before.getNextBooking().getId()).isEqualTo(bookingId);
+
+        TimeUnit.MILLISECONDS.sleep(Duration.between(LocalDateTime.now(), start).toMillis() + 200);
+
+        ItemDto after = itemService.getItemsByOwner(itemId, ownerId);
+        assertThat(after.getLastBooking().getId()).isEqualTo(bookingId);
+        assertThat(after.getNextBooking()).isNull();
+    }
+}
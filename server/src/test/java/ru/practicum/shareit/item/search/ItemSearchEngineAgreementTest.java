@@ -0,0 +1,74 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Движки like и trigram дают одинаковый результат на запросах из postman-коллекции.
+ * Полнотекстовый движок требует PostgreSQL и ищет по словам с префиксом, а не подстроку,
+ * поэтому здесь не проверяется
+ */
+@SpringBootTest
+class ItemSearchEngineAgreementTest {
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private TestData testData;
+
+    private Long drillId;
+    private Long screwdriverId;
+    private Long hiddenId;
+
+    @BeforeEach
+    void setUp() {
+        Long ownerId = testData.user();
+        drillId = testData.item(ownerId, "Дрель", "Простая дрель");
+        screwdriverId = testData.item(ownerId, "Отвертка", "Аккумуляторная отвертка");
+        testData.item(ownerId, "Клей Момент", "Тюбик суперклея марки Момент");
+        testData.item(ownerId, "Кухонный стол", "Стол для празднования");
+        hiddenId = testData.item(ownerId, "Дрель ударная", "Аккумуляторная дрель");
+        itemService.update(ItemDto.builder().available(false).build(), hiddenId, ownerId);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"дРелЬ", "аккУМУляторная", "оТверТ", "рель", "МОМЕНТ", "для празд", "нет такого",
+            "д", "Ре", "ю", "щщ"})
+    void likeAndTrigramEnginesAgree(String text) {
+        LikeItemSearchEngine like = new LikeItemSearchEngine(itemRepository);
+        TrigramItemSearchEngine trigram = new TrigramItemSearchEngine(itemRepository);
+        trigram.build();
+
+        List<Long> expected = ids(like.search(text, PageRequest.of(0, 10_000)));
+
+        assertThat(ids(trigram.search(text, PageRequest.of(0, 10_000)))).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(expected).doesNotContain(hiddenId);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"дРелЬ", "рель"})
+    void substringMatchesDrill(String text) {
+        assertThat(ids(new LikeItemSearchEngine(itemRepository).search(text, PageRequest.of(0, 10_000))))
+                .contains(drillId)
+                .doesNotContain(screwdriverId);
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TrigramItemSearchEngineTest {
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void shortQueriesAreAnsweredFromIndexAndFollowUpdates() {
+        Long ownerId = testData.user();
+        Long itemId = testData.item(ownerId, "Ʃω-ключ", "Гаечный");
+        TrigramItemSearchEngine engine = new TrigramItemSearchEngine(itemRepository);
+        engine.build();
+
+        assertThat(ids(engine.search("ʃ", PageRequest.of(0, 10)))).containsExactly(itemId);
+        assertThat(ids(engine.search("ʃΩ", PageRequest.of(0, 10)))).containsExactly(itemId);
+        assertThat(ids(engine.search("ʃΩ-К", PageRequest.of(0, 10)))).containsExactly(itemId);
+
+        Item item = itemRepository.findById(itemId).orElseThrow();
+        item.setName("Ключ");
+        engine.onItemSaved(item);
+        assertThat(engine.search("ʃ", PageRequest.of(0, 10))).isEmpty();
+        assertThat(engine.search("ʃΩ", PageRequest.of(0, 10))).isEmpty();
+
+        engine.onItemDeleted(itemId);
+        assertThat(engine.search("Гаечный", PageRequest.of(0, 10))).extracting(Item::getId).doesNotContain(itemId);
+    }
+
+    @Test
+    void shortQueryPagesFollowIdOrder() {
+        Long ownerId = testData.user();
+        List<Long> itemIds = List.of(
+                testData.item(ownerId, "ӂ один", "x"),
+                testData.item(ownerId, "ӂ два", "x"),
+                testData.item(ownerId, "ӂ три", "x"));
+        TrigramItemSearchEngine engine = new TrigramItemSearchEngine(itemRepository);
+        engine.build();
+
+        assertThat(ids(engine.search("Ӂ", PageRequest.of(0, 2)))).containsExactlyElementsOf(itemIds.subList(0, 2));
+        assertThat(ids(engine.search("Ӂ", PageRequest.of(1, 2)))).containsExactlyElementsOf(itemIds.subList(2, 3));
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,172 @@
+package ru.practicum.shareit.item.view;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.SqlStatementCounter;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.entity.Status;
+import ru.practicum.shareit.comment.entity.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ItemViewServiceTest {
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ItemViewService itemViewService;
+    @Autowired
+    private ItemViewRepository itemViewRepository;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private TestData testData;
+
+    /**
+     * Каждый поток добавляет отзыв и пересчитывает строку в своей транзакции: ни отзыв, ни версия не теряются
+     */
+    @Test
+    void concurrentRefreshesAreSerialisedOnViewRow() throws Exception {
+        Long ownerId = testData.user();
+        Long authorId = testData.user();
+        Long itemId = testData.item(ownerId);
+        long initialVersion = itemViewRepository.findById(itemId).orElseThrow().getVersion();
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String text = "comment " + i;
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                transaction.executeWithoutResult(status -> {
+                    Item item = itemRepository.findById(itemId).orElseThrow();
+                    commentRepository.save(Comment.builder()
+                            .text(text)
+                            .created(LocalDateTime.now())
+                            .item(item)
+                            .author(userRepository.getReferenceById(authorId))
+                            .build());
+                    itemViewService.refresh(item);
+                });
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        ItemViewRecord record = itemViewRepository.findById(itemId).orElseThrow();
+        assertThat(record.getCommentCount()).isEqualTo(THREADS);
+        assertThat(record.getVersion()).isEqualTo(initialVersion + THREADS);
+    }
+
+    /**
+     * Пока другая транзакция держит блокировку строки, список вещей владельца всё равно читается,
+     * показывает начавшееся бронирование последним и не переписывает строку
+     */
+    @Test
+    void ownerListReadsStaleRowWithoutLockingOrWriting() throws Exception {
+        Long ownerId = testData.user();
+        Long bookerId = testData.user();
+        Long itemId = testData.item(ownerId);
+        LocalDateTime start = LocalDateTime.now().plusSeconds(1);
+        Long bookingId = testData.booking(itemId, bookerId, start, start.plusHours(1), Status.APPROVED);
+        ItemViewRecord stale = itemViewService.refresh(itemId);
+        TimeUnit.MILLISECONDS.sleep(Duration.between(LocalDateTime.now(), start).toMillis() + 200);
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = executor.submit(() -> transaction.executeWithoutResult(status -> {
+            itemViewRepository.findForUpdate(itemId).orElseThrow();
+            locked.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        try {
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            List<ItemDto> items = itemService.getItemsByOwner(ownerId, 0, 10);
+            assertThat(items).hasSize(1);
+            assertThat(items.get(0).getLastBooking().getId()).isEqualTo(bookingId);
+            assertThat(items.get(0).getNextBooking()).isNull();
+        } finally {
+            release.countDown();
+            holder.get(30, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+
+        ItemViewRecord record = itemViewRepository.findById(itemId).orElseThrow();
+        assertThat(record.getVersion()).isEqualTo(stale.getVersion());
+        assertThat(record.getNextBookingId()).isEqualTo(bookingId);
+        assertThat(record.getLastBookingId()).isNull();
+
+        assertThat(itemViewService.refreshStale()).isPositive();
+        record = itemViewRepository.findById(itemId).orElseThrow();
+        assertThat(record.getVersion()).isEqualTo(stale.getVersion() + 1);
+        assertThat(record.getLastBookingId()).isEqualTo(bookingId);
+    }
+
+    @Test
+    void createAllBuildsViewsWithoutPerItemQueries() {
+        Long ownerId = testData.user();
+
+        SqlStatementCounter.reset();
+        itemService.createAll(items(2), ownerId);
+        long small = SqlStatementCounter.count();
+
+        SqlStatementCounter.reset();
+        List<ItemDto> created = itemService.createAll(items(20), ownerId);
+        long large = SqlStatementCounter.count();
+
+        // запас на выборку следующего блока последовательности
+        assertThat(large).isPositive().isLessThanOrEqualTo(small + 2);
+        ItemViewRecord record = itemViewRepository.findById(created.get(0).getId()).orElseThrow();
+        assertThat(record.getVersion()).isZero();
+        assertThat(record.getCommentCount()).isZero();
+        assertThat(itemViewService.getAllComments(record)).isEmpty();
+    }
+
+    private static List<ItemDto> items(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> ItemDto.builder().name("Batch item " + i).description("Batch").available(true).build())
+                .collect(Collectors.toList());
+    }
+}
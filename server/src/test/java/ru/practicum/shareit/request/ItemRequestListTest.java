@@ -0,0 +1,168 @@
+package ru.practicum.shareit.request;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import ru.practicum.shareit.SqlStatementCounter;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.request.dto.ItemRequestCursorPage;
+import ru.practicum.shareit.request.dto.RequestDtoResponseWithItem;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.utilitary.SeekCursor;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.practicum.shareit.utilitary.Constants.HEADER_NEXT_CURSOR;
+import static ru.practicum.shareit.utilitary.Constants.HEADER_USER_ID;
+
+@SpringBootTest
+class ItemRequestListTest {
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "created");
+
+    @Autowired
+    private ItemRequestService itemRequestService;
+    @Autowired
+    private TestData testData;
+    @Autowired
+    private WebApplicationContext context;
+
+    @Test
+    void requestListsIssueConstantNumberOfStatements() {
+        Long requesterId = testData.user();
+        Long ownerId = testData.user();
+        LocalDateTime created = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 20; i++) {
+            Long requestId = testData.request(requesterId, created.minusMinutes(i));
+            testData.itemForRequest(ownerId, requestId);
+            testData.itemForRequest(ownerId, requestId);
+        }
+
+        int privateSmall = countStatements(() -> itemRequestService.getPrivateRequests(PageRequest.of(0, 2, NEWEST_FIRST), requesterId));
+        int privateLarge = countStatements(() -> itemRequestService.getPrivateRequests(PageRequest.of(0, 20, NEWEST_FIRST), requesterId));
+        int otherSmall = countStatements(() -> itemRequestService.getOtherRequests(PageRequest.of(0, 2, NEWEST_FIRST), ownerId));
+        int otherLarge = countStatements(() -> itemRequestService.getOtherRequests(PageRequest.of(0, 20, NEWEST_FIRST), ownerId));
+
+        assertThat(privateLarge).isEqualTo(privateSmall).isBetween(1, 5);
+        assertThat(otherLarge).isEqualTo(otherSmall).isBetween(1, 4);
+        assertThat(itemRequestService.getPrivateRequests(PageRequest.of(0, 20, NEWEST_FIRST), requesterId))
+                .hasSize(20)
+                .allSatisfy(request -> assertThat(request.getItems()).hasSize(2));
+    }
+
+    /**
+     * Запросы с одинаковой датой создания разбиваются на страницы по id: без повторов и пропусков
+     */
+    @Test
+    void keysetPagesHaveNoDuplicatesOrGapsOnEqualTimestamps() {
+        Long readerId = testData.user();
+        Long requesterId = testData.user();
+        // дата позже всех остальных запросов общей базы, чтобы засеянные запросы шли первыми
+        LocalDateTime created = LocalDateTime.now().plusYears(50).truncatedTo(ChronoUnit.SECONDS);
+        List<Long> seeded = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            seeded.add(testData.request(requesterId, i < 3 ? created.plusSeconds(1) : created));
+        }
+
+        List<RequestDtoResponseWithItem> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            ItemRequestCursorPage page = itemRequestService.getOtherRequestsPage(cursor, 4, readerId);
+            assertThat(page.getRequests()).hasSizeLessThanOrEqualTo(4);
+            walked.addAll(page.getRequests());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        List<Long> walkedIds = walked.stream().map(RequestDtoResponseWithItem::getId).collect(Collectors.toList());
+        assertThat(walkedIds).doesNotHaveDuplicates();
+        assertThat(walkedIds.subList(0, seeded.size())).containsExactlyInAnyOrderElementsOf(seeded);
+        List<Long> allIds = itemRequestService.getOtherRequests(PageRequest.of(0, 10_000,
+                        Sort.by(Sort.Direction.DESC, "created", "id")), readerId).stream()
+                .map(RequestDtoResponseWithItem::getId)
+                .collect(Collectors.toList());
+        assertThat(walkedIds).isEqualTo(allIds);
+        assertThat(walked).isSortedAccordingTo(Comparator.comparing(RequestDtoResponseWithItem::getCreated)
+                .thenComparing(RequestDtoResponseWithItem::getId).reversed());
+    }
+
+    /**
+     * Пустой cursor - первая страница ленты, курсор следующей страницы приходит в X-Next-Cursor;
+     * без параметра cursor лента читается по смещению и заголовка нет. Засеянные запросы читаются
+     * с курсора сразу после их даты, чтобы не зависеть от запросов других тестов
+     */
+    @Test
+    void cursorModeOfOtherRequestsEndpoint() throws Exception {
+        MockMvc mvc = MockMvcBuilders.webAppContextSetup(context).build();
+        Long readerId = testData.user();
+        Long requesterId = testData.user();
+        LocalDateTime created = LocalDateTime.now().plusYears(40).truncatedTo(ChronoUnit.SECONDS);
+        List<Long> seeded = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            seeded.add(testData.request(requesterId, created.minusSeconds(i)));
+        }
+        testData.request(readerId, created);
+        String start = new SeekCursor(created.plusSeconds(1), Long.MAX_VALUE).encode();
+
+        mvc.perform(get("/requests/all").header(HEADER_USER_ID, readerId)
+                        .param("cursor", "")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists(HEADER_NEXT_CURSOR));
+
+        MvcResult first = mvc.perform(get("/requests/all").header(HEADER_USER_ID, readerId)
+                        .param("cursor", start)
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(seeded.get(0)))
+                .andExpect(jsonPath("$[1].id").value(seeded.get(1)))
+                .andExpect(header().exists(HEADER_NEXT_CURSOR))
+                .andReturn();
+
+        mvc.perform(get("/requests/all").header(HEADER_USER_ID, readerId)
+                        .param("cursor", first.getResponse().getHeader(HEADER_NEXT_CURSOR))
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value(seeded.get(2)))
+                .andExpect(jsonPath("$[1].id").value(seeded.get(3)));
+
+        mvc.perform(get("/requests/all").header(HEADER_USER_ID, readerId)
+                        .param("from", "0")
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().doesNotExist(HEADER_NEXT_CURSOR));
+
+        mvc.perform(get("/requests/all").header(HEADER_USER_ID, readerId)
+                        .param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+
+        int small = countStatements(() -> itemRequestService.getOtherRequestsPage("", 2, readerId));
+        int large = countStatements(() -> itemRequestService.getOtherRequestsPage("", 20, readerId));
+        assertThat(large).isEqualTo(small);
+    }
+
+    private static int countStatements(Supplier<?> action) {
+        SqlStatementCounter.reset();
+        action.get();
+        return SqlStatementCounter.count();
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.shareit.request.match;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.SqlStatementCounter;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.entity.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.request.dto.ItemDataForRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.RequestDtoResponseWithItem;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.ItemRequestService;
+import ru.practicum.shareit.user.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RequestTermIndexTest {
+    private static final int BATCH = 7;
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private RequestTermIndex requestTermIndex;
+    @Autowired
+    private ItemRequestRepository itemRequestRepository;
+    @Autowired
+    private RequestMatchRepository requestMatchRepository;
+    @Autowired
+    private ItemRequestService itemRequestService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private TestData testData;
+
+    private Integer configuredBatch;
+
+    @AfterEach
+    void restoreBatch() {
+        if (configuredBatch != null) {
+            ReflectionTestUtils.setField(requestTermIndex, "indexBatch", configuredBatch);
+        }
+    }
+
+    /**
+     * Запросы, созданные в обход сервиса, попадают в индекс только при построении; страниц несколько
+     */
+    @Test
+    void buildPagesThroughAllRequests() {
+        Long requesterId = testData.user();
+        List<Long> seeded = new ArrayList<>();
+        for (int i = 0; i < 3 * BATCH + 2; i++) {
+            seeded.add(testData.request(requesterId, LocalDateTime.now()));
+        }
+        // описание засеянных запросов - "Request N", общее слово "request"
+        Item item = Item.builder()
+                .name("Request")
+                .description("answer")
+                .user(User.builder().id(testData.user()).build())
+                .build();
+        configuredBatch = (Integer) ReflectionTestUtils.getField(requestTermIndex, "indexBatch");
+        ReflectionTestUtils.setField(requestTermIndex, "indexBatch", BATCH);
+
+        SqlStatementCounter.reset();
+        requestTermIndex.build();
+        int statements = SqlStatementCounter.count();
+
+        assertThat(requestTermIndex.findMatches(item).keySet()).containsAll(seeded);
+        long total = itemRequestRepository.count();
+        assertThat((long) statements).isBetween(total / BATCH, total / BATCH + 1);
+    }
+
+    /**
+     * Совпадения пересчитываются при создании и при каждом изменении вещи
+     */
+    @Test
+    void itemCreateAndUpdateWriteRequestMatches() {
+        String term = uniqueTerm();
+        Long requesterId = testData.user();
+        Long ownerId = testData.user();
+        Long requestId = createRequest(requesterId, "Need a " + term);
+
+        Long itemId = testData.item(ownerId, "Other " + uniqueTerm(), "Unrelated");
+        assertThat(matchedItemIds(requestId)).isEmpty();
+
+        itemService.update(ItemDto.builder().name("Old " + term).build(), itemId, ownerId);
+        assertThat(matchedItemIds(requestId)).containsExactly(itemId);
+
+        Long createdId = testData.item(ownerId, "Spare " + term, "Fits the request");
+        assertThat(matchedItemIds(requestId)).containsExactly(itemId, createdId);
+
+        itemService.update(ItemDto.builder().name("Renamed " + uniqueTerm()).build(), itemId, ownerId);
+        assertThat(matchedItemIds(requestId)).containsExactly(createdId);
+    }
+
+    @Test
+    void matchedItemsAreShownOnlyToRequestAuthor() {
+        String term = uniqueTerm();
+        Long requesterId = testData.user();
+        Long ownerId = testData.user();
+        Long otherId = testData.user();
+        Long requestId = createRequest(requesterId, "Need a " + term);
+        Long itemId = testData.item(ownerId, "Spare " + term, "Fits the request");
+
+        RequestDtoResponseWithItem forAuthor = itemRequestService.getItemRequest(requesterId, requestId);
+        assertThat(forAuthor.getMatchedItems()).extracting(ItemDataForRequestDto::getId).containsExactly(itemId);
+
+        RequestDtoResponseWithItem forOther = itemRequestService.getItemRequest(otherId, requestId);
+        assertThat(forOther.getMatchedItems()).isNullOrEmpty();
+        assertThat(itemRequestService.getItemRequestETag(otherId, requestId))
+                .isNotEqualTo(itemRequestService.getItemRequestETag(requesterId, requestId));
+    }
+
+    private Long createRequest(Long requesterId, String description) {
+        return itemRequestService.createItemRequest(ItemRequestDto.builder().description(description).build(),
+                requesterId).getId();
+    }
+
+    private List<Long> matchedItemIds(Long requestId) {
+        return requestMatchRepository.findAllByRequestIdInOrderByItemId(List.of(requestId)).stream()
+                .map(match -> match.getItem().getId())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Слово, которого нет в описаниях других тестов
+     */
+    private static String uniqueTerm() {
+        return "telescope" + SEQUENCE.incrementAndGet() + "x" + System.nanoTime();
+    }
+}
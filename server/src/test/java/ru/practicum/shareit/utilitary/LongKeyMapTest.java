@@ -0,0 +1,49 @@
+package ru.practicum.shareit.utilitary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongKeyMapTest {
+    @Test
+    void randomOperationsMatchHashMap() {
+        LongKeyMap<String> map = new LongKeyMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            // узкий диапазон ключей даёт много коллизий и удалений внутри кластеров
+            long key = random.nextInt(5_000) * 1024L;
+            switch (random.nextInt(3)) {
+                case 0:
+                    map.put(key, "v" + i);
+                    expected.put(key, "v" + i);
+                    break;
+                case 1:
+                    assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+                    break;
+                default:
+                    assertThat(map.get(key)).isEqualTo(expected.get(key));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+    }
+
+    @Test
+    void computeIfAbsentKeepsExistingValue() {
+        LongKeyMap<LongPostingList> map = new LongKeyMap<>();
+
+        map.computeIfAbsent(-7L, key -> new LongPostingList()).add(1);
+        map.computeIfAbsent(-7L, key -> new LongPostingList()).add(2);
+
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.get(-7L).toArray()).containsExactly(1, 2);
+        assertThat(map.get(7L)).isNull();
+    }
+}